@@ -0,0 +1,178 @@
+package networktopology;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Memory-mapped reader for files written by BinaryLogWriter.
+// Opening a file decodes only the block headers and dictionaries. Queries translate their
+// string filters into per-block dictionary ids, skip blocks that cannot match at all, and
+// scan just the columns they filter on; a FirewallLog is only built for matching records.
+public class BinaryLogReader {
+    private final MappedByteBuffer buffer;
+    private final List<Block> blocks = new ArrayList<>();
+    private final long recordCount;
+
+    public BinaryLogReader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Log file too large to map: " + file + "; rotate logs into smaller files");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        long records = 0;
+        int position = 0;
+        while (position + BinaryLogWriter.HEADER_BYTES <= buffer.limit()) {
+            if (buffer.getInt(position) != BinaryLogWriter.MAGIC) {
+                throw new IOException("Corrupt log block at offset " + position + " in " + file);
+            }
+            int length = buffer.getInt(position + 4);
+            if (length <= 0 || position + length > buffer.limit()) break; // Truncated trailing block
+            Block block = new Block(position);
+            blocks.add(block);
+            records += block.records;
+            position += length;
+        }
+        recordCount = records;
+    }
+
+    public long recordCount() {
+        return recordCount;
+    }
+
+    // Filter for query(); null strings, a negative port and a null status match anything
+    public static class Filter {
+        public String source;
+        public String destination;
+        public int port = -1;
+        public String status; // FirewallEngine.ALLOWED or FirewallEngine.BLOCKED
+        public long from = Long.MIN_VALUE; // Timestamp range, inclusive
+        public long to = Long.MAX_VALUE;
+
+        public Filter source(String source) {
+            this.source = source;
+            return this;
+        }
+
+        public Filter destination(String destination) {
+            this.destination = destination;
+            return this;
+        }
+
+        public Filter port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Filter status(String status) {
+            this.status = status;
+            return this;
+        }
+
+        public Filter between(long from, long to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+    }
+
+    public long count(Filter filter) {
+        long[] count = {0};
+        scan(filter, (block, record) -> count[0]++);
+        return count[0];
+    }
+
+    public List<FirewallLog> query(Filter filter) {
+        List<FirewallLog> matches = new ArrayList<>();
+        forEach(filter, matches::add);
+        return matches;
+    }
+
+    public void forEach(Filter filter, Consumer<FirewallLog> action) {
+        scan(filter, (block, record) -> action.accept(block.record(record)));
+    }
+
+    private interface Match {
+        void accept(Block block, int record);
+    }
+
+    private void scan(Filter filter, Match match) {
+        int status = filter.status == null ? -1 : FirewallEngine.ALLOWED.equals(filter.status) ? 1 : 0;
+        for (Block block : blocks) {
+            int source = filter.source == null ? -1 : block.idOf(filter.source);
+            int destination = filter.destination == null ? -1 : block.idOf(filter.destination);
+            if (source == -2 || destination == -2) continue; // Value never occurs in this block
+            for (int record = 0; record < block.records; record++) {
+                if (source >= 0 && buffer.getInt(block.sources + 4 * record) != source) continue;
+                if (destination >= 0 && buffer.getInt(block.destinations + 4 * record) != destination) continue;
+                if (filter.port >= 0 && buffer.getChar(block.ports + 2 * record) != filter.port) continue;
+                if (status >= 0 && buffer.get(block.statuses + record) != status) continue;
+                long timestamp = buffer.getLong(block.timestamps + 8 * record);
+                if (timestamp < filter.from || timestamp > filter.to) continue;
+                match.accept(block, record);
+            }
+        }
+    }
+
+    // Offsets of one block's columns within the mapped file
+    private class Block {
+        final int records;
+        final String[] dictionary;
+        final int timestamps;
+        final int sources;
+        final int destinations;
+        final int protocols;
+        final int ports;
+        final int statuses;
+        final Map<String, Integer> ids; // Dictionary value to id, for filters
+
+        Block(int offset) {
+            records = buffer.getInt(offset + 8);
+            dictionary = new String[buffer.getInt(offset + 12)];
+            ids = new HashMap<>(dictionary.length * 2);
+            int position = offset + BinaryLogWriter.HEADER_BYTES;
+            byte[] bytes = new byte[64];
+            for (int id = 0; id < dictionary.length; id++) {
+                int length = buffer.getChar(position);
+                if (bytes.length < length) bytes = new byte[length];
+                buffer.get(position + 2, bytes, 0, length);
+                dictionary[id] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                ids.put(dictionary[id], id);
+                position += 2 + length;
+            }
+            timestamps = offset + BinaryLogWriter.align(position - offset);
+            sources = timestamps + 8 * records;
+            destinations = sources + 4 * records;
+            protocols = destinations + 4 * records;
+            ports = protocols + 4 * records;
+            statuses = ports + 2 * records;
+        }
+
+        // Dictionary id of the value, or -2 if the block never contains it
+        int idOf(String value) {
+            return ids.getOrDefault(value, -2);
+        }
+
+        FirewallLog record(int record) {
+            FirewallLog log = new FirewallLog(
+                    dictionary[buffer.getInt(sources + 4 * record)],
+                    dictionary[buffer.getInt(destinations + 4 * record)],
+                    buffer.getChar(ports + 2 * record),
+                    dictionary[buffer.getInt(protocols + 4 * record)],
+                    buffer.get(statuses + record) == 1 ? FirewallEngine.ALLOWED : FirewallEngine.BLOCKED);
+            log.timestamp = buffer.getLong(timestamps + 8 * record);
+            return log;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package networktopology;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Encodes traffic log records into the binary columnar format read by BinaryLogReader.
+// A log file is a sequence of self-contained blocks, so files can be appended to and rotated:
+//
+//   int magic, int blockLength (bytes, multiple of 8), int records, int dictionarySize
+//   dictionary: per string an unsigned short byte length and its UTF-8 bytes, padded to 8
+//   long[records] timestamps
+//   int[records]  source ids          (indexes into the block dictionary)
+//   int[records]  destination ids
+//   int[records]  protocol ids
+//   short[records] ports              (unsigned)
+//   byte[records] statuses            (1 allowed, 0 blocked), padded to 8
+//
+// All values are little-endian. Records are buffered column-wise until writeBlock().
+public class BinaryLogWriter {
+    static final int MAGIC = 0x424C5746; // "FWLB" in little-endian byte order
+    static final int HEADER_BYTES = 16;
+    public static final int MAX_BLOCK_RECORDS = 1 << 16;
+
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final byte[][] dictionary = new byte[3 * MAX_BLOCK_RECORDS][];
+    private int dictionarySize;
+    private int dictionaryBytes;
+
+    private final long[] timestamps = new long[MAX_BLOCK_RECORDS];
+    private final int[] sources = new int[MAX_BLOCK_RECORDS];
+    private final int[] destinations = new int[MAX_BLOCK_RECORDS];
+    private final int[] protocols = new int[MAX_BLOCK_RECORDS];
+    private final char[] ports = new char[MAX_BLOCK_RECORDS];
+    private final byte[] statuses = new byte[MAX_BLOCK_RECORDS];
+    private int size;
+
+    private ByteBuffer output = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == MAX_BLOCK_RECORDS;
+    }
+
+    public void add(FirewallLog log) {
+        add(log.timestamp, log.source, log.destination, log.port, log.protocol, FirewallEngine.ALLOWED.equals(log.status));
+    }
+
+    public void add(long timestamp, String source, String destination, int port, String protocol, boolean allowed) {
+        if (isFull()) throw new IllegalStateException("Block is full; call writeBlock first");
+        timestamps[size] = timestamp;
+        sources[size] = idOf(source);
+        destinations[size] = idOf(destination);
+        protocols[size] = idOf(protocol);
+        ports[size] = (char) port;
+        statuses[size] = (byte) (allowed ? 1 : 0);
+        size++;
+    }
+
+    // Encode the buffered records as one block, write it and start a new block. No-op when empty.
+    public void writeBlock(WritableByteChannel channel) throws IOException {
+        if (size == 0) return;
+        int dictionaryLength = align(dictionaryBytes);
+        int blockLength = HEADER_BYTES + dictionaryLength + align(size * 23); // 8 + 3 * 4 + 2 + 1 bytes per record
+        if (output.capacity() < blockLength) {
+            output = ByteBuffer.allocateDirect(Integer.highestOneBit(blockLength - 1) << 1).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer out = output;
+        out.clear();
+        out.putInt(MAGIC).putInt(blockLength).putInt(size).putInt(dictionarySize);
+        for (int id = 0; id < dictionarySize; id++) {
+            out.putShort((short) dictionary[id].length).put(dictionary[id]);
+        }
+        pad(out);
+        for (int i = 0; i < size; i++) out.putLong(timestamps[i]);
+        for (int i = 0; i < size; i++) out.putInt(sources[i]);
+        for (int i = 0; i < size; i++) out.putInt(destinations[i]);
+        for (int i = 0; i < size; i++) out.putInt(protocols[i]);
+        for (int i = 0; i < size; i++) out.putChar(ports[i]);
+        out.put(statuses, 0, size);
+        pad(out);
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        reset();
+    }
+
+    public void reset() {
+        dictionaryIds.clear();
+        Arrays.fill(dictionary, 0, dictionarySize, null);
+        dictionarySize = 0;
+        dictionaryBytes = 0;
+        size = 0;
+    }
+
+    private int idOf(String value) {
+        Integer id = dictionaryIds.get(value);
+        if (id != null) return id;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) bytes = Arrays.copyOf(bytes, 0xFFFF);
+        int created = dictionarySize++;
+        dictionary[created] = bytes;
+        dictionaryBytes += 2 + bytes.length;
+        dictionaryIds.put(value, created);
+        return created;
+    }
+
+    static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static void pad(ByteBuffer out) {
+        while ((out.position() & 7) != 0) out.put((byte) 0);
+    }
+}
@@ -0,0 +1,81 @@
+package networktopology;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+// Edges of a Graph kept sorted by weight, so threshold and top-K bottleneck queries cost
+// O(log E + k) instead of a full scan. The Graph keeps it current through GraphChangeListener.
+// Each weight bucket is a LinkedHashSet (Links compare by identity), so reweighting a link
+// removes it from its bucket in constant time while buckets keep insertion order.
+public class BottleneckIndex implements GraphChangeListener {
+    private final TreeMap<Integer, Set<Link>> byWeight = new TreeMap<>();
+    private final Map<String, List<Link>> bySource = new HashMap<>(); // Used to find links on reweighting
+    private int size;
+
+    BottleneckIndex(CompiledGraph graph) {
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                insert(new Link(graph.nameOf(node), graph.nameOf(graph.target(edge)), graph.weight(edge)));
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Links heavier than threshold, heaviest first
+    public synchronized Stream<Link> above(int threshold) {
+        long started = Metrics.ENABLED ? System.nanoTime() : 0;
+        List<Link> result = new ArrayList<>();
+        for (Set<Link> links : byWeight.tailMap(threshold, false).descendingMap().values()) {
+            result.addAll(links);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.BOTTLENECK_LINKS.add(result.size());
+            Metrics.BOTTLENECK_LATENCY.record(System.nanoTime() - started);
+        }
+        return result.stream();
+    }
+
+    // The k heaviest links, heaviest first
+    public synchronized Stream<Link> top(int k) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative: " + k);
+        List<Link> result = new ArrayList<>(Math.min(k, size));
+        for (Set<Link> links : byWeight.descendingMap().values()) {
+            for (Link link : links) {
+                if (result.size() == k) return result.stream();
+                result.add(link);
+            }
+        }
+        return result.stream();
+    }
+
+    @Override
+    public synchronized void edgeAdded(String source, String destination, int weight) {
+        insert(new Link(source, destination, weight));
+    }
+
+    @Override
+    public synchronized void edgeWeightChanged(String source, String destination, int oldWeight, int newWeight) {
+        List<Link> links = bySource.get(source);
+        if (links == null) return;
+        for (int i = 0; i < links.size(); i++) {
+            Link link = links.get(i);
+            if (!link.destination.equals(destination)) continue;
+            Set<Link> bucket = byWeight.get(link.weight);
+            bucket.remove(link);
+            if (bucket.isEmpty()) byWeight.remove(link.weight);
+
+            Link updated = new Link(source, destination, newWeight);
+            links.set(i, updated);
+            byWeight.computeIfAbsent(newWeight, k -> new LinkedHashSet<>()).add(updated);
+        }
+    }
+
+    private void insert(Link link) {
+        byWeight.computeIfAbsent(link.weight, k -> new LinkedHashSet<>()).add(link);
+        bySource.computeIfAbsent(link.source, k -> new ArrayList<>()).add(link);
+        size++;
+    }
+}
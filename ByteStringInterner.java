@@ -0,0 +1,124 @@
+package networktopology;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Interns byte slices (tokens read straight from a file buffer) to dense ids and shared Strings.
+// Repeated tokens are found by hashing and comparing the raw bytes. The first occurrence of each
+// distinct token is appended to one shared byte arena, and its String is created on first get(),
+// so interning allocates no object per token. Not thread-safe.
+public class ByteStringInterner {
+    private int[] table;      // Open-addressing slots holding id + 1, 0 = empty
+    private int[] hashes;     // Hash per id
+    private int[] starts;     // Arena offset per id; token id spans starts[id] .. starts[id + 1]
+    private byte[] arena;
+    private String[] strings; // Decoded lazily
+    private int size;
+
+    public ByteStringInterner() {
+        this(1024);
+    }
+
+    public ByteStringInterner(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        table = new int[capacity];
+        hashes = new int[capacity / 2];
+        starts = new int[capacity / 2 + 1];
+        arena = new byte[capacity * 8];
+        strings = new String[capacity / 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String get(int id) {
+        String string = strings[id];
+        if (string == null) {
+            string = new String(arena, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+            strings[id] = string;
+        }
+        return string;
+    }
+
+    // Strings by id, trimmed to size
+    public String[] toArray() {
+        String[] all = new String[size];
+        for (int id = 0; id < size; id++) {
+            all[id] = get(id);
+        }
+        return all;
+    }
+
+    public String intern(byte[] buffer, int offset, int length) {
+        return get(id(buffer, offset, length));
+    }
+
+    // Id in this interner of token otherId of another interner, compared byte for byte
+    public int id(ByteStringInterner other, int otherId) {
+        int start = other.starts[otherId];
+        return id(other.arena, start, other.starts[otherId + 1] - start);
+    }
+
+    // Dense id of the token, assigned in first-seen order
+    public int id(byte[] buffer, int offset, int length) {
+        int hash = hash(buffer, offset, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        for (int entry = table[slot]; entry != 0; entry = table[slot]) {
+            int id = entry - 1;
+            if (hashes[id] == hash && sameBytes(id, buffer, offset, length)) return id;
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        if (id == strings.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            starts = Arrays.copyOf(starts, id * 2 + 1);
+            strings = Arrays.copyOf(strings, id * 2);
+        }
+        int start = starts[id];
+        if (start + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + length));
+        }
+        System.arraycopy(buffer, offset, arena, start, length);
+        starts[id + 1] = start + length;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        if (size * 2 > table.length) rehash();
+        return id;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(strings, 0, size, null);
+        size = 0;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+
+    private static int hash(byte[] buffer, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private boolean sameBytes(int id, byte[] buffer, int offset, int length) {
+        int start = starts[id];
+        if (starts[id + 1] - start != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (arena[start + i] != buffer[offset + i]) return false;
+        }
+        return true;
+    }
+}
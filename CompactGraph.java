@@ -0,0 +1,254 @@
+package networktopology;
+
+import java.util.*;
+
+// Graph storage mode for very large topologies.
+// Device names are interned once into an open-addressing table and referred to by dense int ids;
+// the links of each node live in one growable int[] of (target, weight) pairs. A link therefore
+// costs 8 bytes instead of an Edge object plus a list slot, and a node costs one array rather
+// than an ArrayList and a HashMap entry. Queries still go through the compiled snapshot, so
+// findShortestPath, discoverDevices and the other Graph methods behave exactly as before.
+// Like Graph, it is not thread-safe.
+public class CompactGraph extends Graph {
+    private static final int[] NO_EDGES = new int[0];
+
+    private String[] names = new String[16];
+    private int[] table = new int[32]; // Open-addressing slots holding id + 1, 0 = empty
+    private int nodeCount;
+    private long edgeCount;
+
+    private int[][] edges = new int[16][];  // Outgoing (target, weight) pairs per node
+    private int[] degrees = new int[16];
+    private int[][] incoming;               // Incoming (source, weight) pairs, built on first use
+    private int[] inDegrees;
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public void addEdge(String source, String destination, int weight) {
+        int from = intern(source);
+        int to = intern(destination);
+        append(from, to, weight);
+        modified();
+        for (GraphChangeListener listener : listeners) {
+            listener.edgeAdded(source, destination, weight);
+        }
+    }
+
+    @Override
+    public boolean updateEdgeWeight(String source, String destination, int weight) {
+        int from = idOf(source);
+        int to = idOf(destination);
+        if (from < 0 || to < 0) return false;
+        int oldWeight = Integer.MAX_VALUE;
+        int[] pairs = edges[from];
+        for (int i = 0; i < 2 * degrees[from]; i += 2) {
+            if (pairs[i] == to) {
+                oldWeight = Math.min(oldWeight, pairs[i + 1]);
+                pairs[i + 1] = weight;
+            }
+        }
+        if (oldWeight == Integer.MAX_VALUE) return false;
+
+        if (incoming != null) {
+            int[] reverse = incoming[to];
+            for (int i = 0; i < 2 * inDegrees[to]; i += 2) {
+                if (reverse[i] == from) reverse[i + 1] = weight;
+            }
+        }
+        modified();
+        for (GraphChangeListener listener : listeners) {
+            listener.edgeWeightChanged(source, destination, oldWeight, weight);
+        }
+        return true;
+    }
+
+    // Bulk load without creating per-edge objects; an empty graph adopts the snapshot as-is
+    @Override
+    public void addAll(CompiledGraph compiled) {
+        boolean wasEmpty = nodeCount == 0;
+        int[] ids = new int[compiled.nodeCount()];
+        for (int node = 0; node < ids.length; node++) {
+            ids[node] = intern(compiled.nameOf(node));
+        }
+        for (int node = 0; node < ids.length; node++) {
+            int from = ids[node];
+            ensurePairs(from, compiled.lastEdge(node) - compiled.firstEdge(node));
+            for (int edge = compiled.firstEdge(node); edge < compiled.lastEdge(node); edge++) {
+                append(from, ids[compiled.target(edge)], compiled.weight(edge));
+                for (GraphChangeListener listener : listeners) {
+                    listener.edgeAdded(names[from], compiled.nameOf(compiled.target(edge)), compiled.weight(edge));
+                }
+            }
+        }
+        modified();
+        if (wasEmpty) adoptSnapshot(compiled);
+    }
+
+    @Override
+    List<Edge> outgoingEdges(String node) {
+        int id = idOf(node);
+        if (id < 0) return Collections.emptyList();
+        return toEdges(edges[id], degrees[id]);
+    }
+
+    @Override
+    List<Edge> incomingEdges(String node) {
+        if (incoming == null) buildIncoming();
+        int id = idOf(node);
+        if (id < 0) return Collections.emptyList();
+        return toEdges(incoming[id], inDegrees[id]);
+    }
+
+    @Override
+    public void printTopology() {
+        snapshot().printTopology();
+    }
+
+    // Copy of the topology in the Graph representation, in insertion order
+    @Override
+    public Map<String, List<Edge>> getGraphData() {
+        Map<String, List<Edge>> copy = new LinkedHashMap<>();
+        for (int node = 0; node < nodeCount; node++) {
+            copy.put(names[node], toEdges(edges[node], degrees[node]));
+        }
+        return copy;
+    }
+
+    // CSR arrays are filled straight from the pair arrays, nodes in insertion order
+    @Override
+    public CompiledGraph compile() {
+        if (edgeCount > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many links to compile");
+        int[] offsets = new int[nodeCount + 1];
+        int[] targets = new int[(int) edgeCount];
+        int[] weights = new int[(int) edgeCount];
+        int position = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node] = position;
+            int[] pairs = edges[node];
+            for (int i = 0; i < 2 * degrees[node]; i += 2) {
+                targets[position] = pairs[i];
+                weights[position] = pairs[i + 1];
+                position++;
+            }
+        }
+        offsets[nodeCount] = position;
+        return CompiledGraph.fromCsr(Arrays.copyOf(names, nodeCount), offsets, targets, weights);
+    }
+
+    private List<Edge> toEdges(int[] pairs, int degree) {
+        List<Edge> list = new ArrayList<>(degree);
+        for (int i = 0; i < 2 * degree; i += 2) {
+            list.add(new Edge(names[pairs[i]], pairs[i + 1]));
+        }
+        return list;
+    }
+
+    private void append(int from, int to, int weight) {
+        ensurePairs(from, 1);
+        int[] pairs = edges[from];
+        int slot = 2 * degrees[from]++;
+        pairs[slot] = to;
+        pairs[slot + 1] = weight;
+        edgeCount++;
+
+        if (incoming != null) {
+            if (2 * (inDegrees[to] + 1) > incoming[to].length) {
+                incoming[to] = Arrays.copyOf(incoming[to], Math.max(4, incoming[to].length * 2));
+            }
+            int reverseSlot = 2 * inDegrees[to]++;
+            incoming[to][reverseSlot] = from;
+            incoming[to][reverseSlot + 1] = weight;
+        }
+    }
+
+    // Makes room for extra links of a node, growing by half to keep slack low on huge graphs
+    private void ensurePairs(int node, int extra) {
+        int needed = 2 * (degrees[node] + extra);
+        int[] pairs = edges[node];
+        if (needed > pairs.length) {
+            edges[node] = Arrays.copyOf(pairs, Math.max(needed, Math.max(4, pairs.length + (pairs.length >> 1))));
+        }
+    }
+
+    private void buildIncoming() {
+        int[] counts = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            int[] pairs = edges[node];
+            for (int i = 0; i < 2 * degrees[node]; i += 2) {
+                counts[pairs[i]]++;
+            }
+        }
+        int[][] reverse = new int[names.length][];
+        for (int node = 0; node < nodeCount; node++) {
+            reverse[node] = counts[node] == 0 ? NO_EDGES : new int[2 * counts[node]];
+        }
+        int[] fill = new int[names.length];
+        for (int node = 0; node < nodeCount; node++) {
+            int[] pairs = edges[node];
+            for (int i = 0; i < 2 * degrees[node]; i += 2) {
+                int target = pairs[i];
+                int slot = 2 * fill[target]++;
+                reverse[target][slot] = node;
+                reverse[target][slot + 1] = pairs[i + 1];
+            }
+        }
+        inDegrees = fill;
+        incoming = reverse;
+    }
+
+    // Id of a device, or -1 if it has never been added
+    private int idOf(String name) {
+        int mask = table.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (names[table[slot] - 1].equals(name)) return table[slot] - 1;
+        }
+        return -1;
+    }
+
+    private int intern(String name) {
+        int mask = table.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        for (; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (names[table[slot] - 1].equals(name)) return table[slot] - 1;
+        }
+
+        int id = nodeCount++;
+        if (id == names.length) {
+            int capacity = id * 2;
+            names = Arrays.copyOf(names, capacity);
+            edges = Arrays.copyOf(edges, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+            if (incoming != null) {
+                incoming = Arrays.copyOf(incoming, capacity);
+                inDegrees = Arrays.copyOf(inDegrees, capacity);
+            }
+        }
+        names[id] = name;
+        edges[id] = NO_EDGES;
+        if (incoming != null) incoming[id] = NO_EDGES;
+        table[slot] = id + 1;
+        if (nodeCount * 2 > table.length) rehash();
+        return id;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < nodeCount; id++) {
+            int slot = spread(names[id].hashCode()) & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
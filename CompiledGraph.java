@@ -0,0 +1,496 @@
+package networktopology;
+
+import java.util.*;
+
+// Immutable, compressed sparse row (CSR) snapshot of a Graph.
+// Device names are interned to dense int ids; the edges of node i live in
+// targets/weights[offsets[i] .. offsets[i + 1]), in the same order addEdge stored them.
+public class CompiledGraph {
+    // Arrays are package-private so GraphSnapshotFile can write them out without copying
+    final String[] names;
+    private final Map<String, Integer> ids;
+    private final Map<String, Integer> addedIds; // Devices added by withChanges since ids was built
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+
+    // Reverse index: incoming edges of node i live in reverseSources/reverseEdges[reverseOffsets[i] ..)
+    final int[] reverseOffsets;
+    final int[] reverseSources;
+    final int[] reverseEdges; // Forward edge id of each incoming edge
+
+    private volatile Landmarks landmarks; // ALT landmarks, selected on first heuristic query
+    private volatile ConnectivityAnalysis connectivity; // Created on first resilience query
+
+    CompiledGraph(Map<String, List<Graph.Edge>> adjacencyList) {
+        int nodeCount = adjacencyList.size();
+        names = new String[nodeCount];
+        ids = new HashMap<>(nodeCount * 2);
+        addedIds = Collections.emptyMap();
+
+        // Intern node names in adjacency order so scans report nodes in the same order as Graph
+        int edgeCount = 0;
+        for (Map.Entry<String, List<Graph.Edge>> entry : adjacencyList.entrySet()) {
+            int id = ids.size();
+            names[id] = entry.getKey();
+            ids.put(entry.getKey(), id);
+            edgeCount += entry.getValue().size();
+        }
+
+        offsets = new int[nodeCount + 1];
+        targets = new int[edgeCount];
+        weights = new int[edgeCount];
+
+        int position = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node] = position;
+            for (Graph.Edge edge : adjacencyList.get(names[node])) {
+                targets[position] = ids.get(edge.destination);
+                weights[position] = edge.weight;
+                position++;
+            }
+        }
+        offsets[nodeCount] = position;
+
+        reverseOffsets = new int[nodeCount + 1];
+        reverseSources = new int[edgeCount];
+        reverseEdges = new int[edgeCount];
+        buildReverseIndex(offsets, targets, reverseOffsets, reverseSources, reverseEdges);
+    }
+
+    // Builds a snapshot from parallel edge arrays (edge i runs sources[i] -> targets[i]).
+    // Each node keeps its outgoing edges in array order, as if they had been added one by one.
+    static CompiledGraph fromEdges(String[] names, int[] sources, int[] targets, int[] weights, int edgeCount) {
+        int nodeCount = names.length;
+        int[] offsets = new int[nodeCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            offsets[sources[edge] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] sortedTargets = new int[edgeCount];
+        int[] sortedWeights = new int[edgeCount];
+        int[] fill = Arrays.copyOf(offsets, nodeCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int slot = fill[sources[edge]]++;
+            sortedTargets[slot] = targets[edge];
+            sortedWeights[slot] = weights[edge];
+        }
+        return fromCsr(names, offsets, sortedTargets, sortedWeights);
+    }
+
+    // Builds a snapshot from forward CSR arrays, adding the reverse index
+    static CompiledGraph fromCsr(String[] names, int[] offsets, int[] targets, int[] weights) {
+        int edgeCount = targets.length;
+        int[] reverseOffsets = new int[names.length + 1];
+        int[] reverseSources = new int[edgeCount];
+        int[] reverseEdges = new int[edgeCount];
+        buildReverseIndex(offsets, targets, reverseOffsets, reverseSources, reverseEdges);
+        return new CompiledGraph(names, offsets, targets, weights, reverseOffsets, reverseSources, reverseEdges);
+    }
+
+    // Build the reverse index with a counting sort over edge targets
+    private static void buildReverseIndex(int[] offsets, int[] targets,
+                                          int[] reverseOffsets, int[] reverseSources, int[] reverseEdges) {
+        int nodeCount = offsets.length - 1;
+        for (int edge = 0; edge < targets.length; edge++) {
+            reverseOffsets[targets[edge] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            reverseOffsets[node + 1] += reverseOffsets[node];
+        }
+        int[] fill = Arrays.copyOf(reverseOffsets, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                int slot = fill[targets[edge]]++;
+                reverseSources[slot] = node;
+                reverseEdges[slot] = edge;
+            }
+        }
+    }
+
+    // Adopts already-built CSR arrays, e.g. read back from a GraphSnapshotFile
+    CompiledGraph(String[] names, int[] offsets, int[] targets, int[] weights,
+                  int[] reverseOffsets, int[] reverseSources, int[] reverseEdges) {
+        this(names, index(names), Collections.emptyMap(), offsets, targets, weights,
+                reverseOffsets, reverseSources, reverseEdges);
+    }
+
+    private CompiledGraph(String[] names, Map<String, Integer> ids, Map<String, Integer> addedIds,
+                          int[] offsets, int[] targets, int[] weights,
+                          int[] reverseOffsets, int[] reverseSources, int[] reverseEdges) {
+        this.names = names;
+        this.ids = ids;
+        this.addedIds = addedIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseSources = reverseSources;
+        this.reverseEdges = reverseEdges;
+    }
+
+    private static Map<String, Integer> index(String[] names) {
+        Map<String, Integer> ids = new HashMap<>(names.length * 2);
+        for (int id = 0; id < names.length; id++) {
+            ids.put(names[id], id);
+        }
+        return ids;
+    }
+
+    // Snapshot of this topology after the logged changes: this snapshot's edges followed, per
+    // node, by the edges added in delta, with delta's reweightings applied in order. Costs
+    // O(V + E) array copying but no name lookups for existing edges, and reuses the name index
+    // unless devices were added.
+    CompiledGraph withChanges(List<TopologyChange> delta) {
+        if (delta.isEmpty()) return this;
+        CompiledGraph base = this;
+        int baseNodes = base.nodeCount();
+        int baseEdges = base.edgeCount();
+        Map<String, Integer> newIds = new HashMap<>();
+        List<String> newNames = new ArrayList<>();
+
+        // Added edges in log order, and each reweighting with the number of edges its source had
+        // gained before it
+        int[] addSources = new int[16];
+        int[] addTargets = new int[16];
+        int[] addWeights = new int[16];
+        int added = 0;
+        int[] addedTo = new int[baseNodes + 16]; // Edges added so far, per source
+        List<int[]> updates = new ArrayList<>(); // {source, target, weight, edges added to source before}
+        for (TopologyChange change : delta) {
+            if (change.bulk != null) {
+                CompiledGraph bulk = change.bulk;
+                int[] bulkIds = new int[bulk.nodeCount()];
+                for (int node = 0; node < bulkIds.length; node++) {
+                    bulkIds[node] = idOf(base, newIds, newNames, bulk.nameOf(node));
+                }
+                int needed = added + bulk.edgeCount();
+                if (needed > addSources.length) {
+                    int capacity = Math.max(needed, addSources.length * 2);
+                    addSources = Arrays.copyOf(addSources, capacity);
+                    addTargets = Arrays.copyOf(addTargets, capacity);
+                    addWeights = Arrays.copyOf(addWeights, capacity);
+                }
+                if (baseNodes + newNames.size() > addedTo.length) {
+                    addedTo = Arrays.copyOf(addedTo, Math.max(baseNodes + newNames.size(), addedTo.length * 2));
+                }
+                for (int node = 0; node < bulkIds.length; node++) {
+                    addedTo[bulkIds[node]] += bulk.lastEdge(node) - bulk.firstEdge(node);
+                    for (int edge = bulk.firstEdge(node); edge < bulk.lastEdge(node); edge++) {
+                        addSources[added] = bulkIds[node];
+                        addTargets[added] = bulkIds[bulk.target(edge)];
+                        addWeights[added] = bulk.weight(edge);
+                        added++;
+                    }
+                }
+                continue;
+            }
+            int target = idOf(base, newIds, newNames, change.destination);
+            int source = idOf(base, newIds, newNames, change.source);
+            if (source >= addedTo.length) addedTo = Arrays.copyOf(addedTo, addedTo.length * 2);
+            if (change.oldWeight != TopologyChange.ADDED) {
+                updates.add(new int[]{source, target, change.weight, addedTo[source]});
+                continue;
+            }
+            addedTo[source]++;
+            if (added == addSources.length) {
+                addSources = Arrays.copyOf(addSources, added * 2);
+                addTargets = Arrays.copyOf(addTargets, added * 2);
+                addWeights = Arrays.copyOf(addWeights, added * 2);
+            }
+            addSources[added] = source;
+            addTargets[added] = target;
+            addWeights[added] = change.weight;
+            added++;
+        }
+
+        int nodeCount = baseNodes + newNames.size();
+        String[] names = new String[nodeCount];
+        int[] offsets = new int[nodeCount + 1];
+        for (int node = 0; node < baseNodes; node++) {
+            names[node] = base.nameOf(node);
+            offsets[node + 1] = base.lastEdge(node) - base.firstEdge(node);
+        }
+        for (int i = 0; i < newNames.size(); i++) {
+            names[baseNodes + i] = newNames.get(i);
+        }
+        for (int i = 0; i < added; i++) {
+            offsets[addSources[i] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+
+        int[] targets = new int[baseEdges + added];
+        int[] weights = new int[baseEdges + added];
+        int[] fill = new int[nodeCount]; // Next free slot of each node
+        for (int node = 0; node < nodeCount; node++) {
+            int from = node < baseNodes ? base.firstEdge(node) : 0;
+            int degree = node < baseNodes ? base.lastEdge(node) - from : 0;
+            System.arraycopy(base.targets, from, targets, offsets[node], degree);
+            System.arraycopy(base.weights, from, weights, offsets[node], degree);
+            fill[node] = offsets[node] + degree;
+        }
+        for (int i = 0; i < added; i++) {
+            int slot = fill[addSources[i]]++;
+            targets[slot] = addTargets[i];
+            weights[slot] = addWeights[i];
+        }
+
+        // A reweighting applies to the base edges of its link and to the edges added before it,
+        // which follow the base edges in add order
+        for (int[] update : updates) {
+            int source = update[0];
+            int baseDegree = source < baseNodes ? base.lastEdge(source) - base.firstEdge(source) : 0;
+            int end = offsets[source] + baseDegree + update[3];
+            for (int slot = offsets[source]; slot < end; slot++) {
+                if (targets[slot] == update[1]) weights[slot] = update[2];
+            }
+        }
+        // The name index is shared with this snapshot; new devices go into a small second map
+        // that is folded into a new index only once it has grown to an eighth of the shared one
+        Map<String, Integer> nameIds = ids;
+        Map<String, Integer> extra = addedIds;
+        if (!newNames.isEmpty()) {
+            if (addedIds.size() + newNames.size() > Math.max(1024, ids.size() / 8)) {
+                nameIds = index(names);
+                extra = Collections.emptyMap();
+            } else {
+                extra = new HashMap<>(addedIds);
+                extra.putAll(newIds);
+            }
+        }
+        int[] reverseOffsets = new int[nodeCount + 1];
+        int[] reverseSources = new int[targets.length];
+        int[] reverseEdges = new int[targets.length];
+        buildReverseIndex(offsets, targets, reverseOffsets, reverseSources, reverseEdges);
+        return new CompiledGraph(names, nameIds, extra, offsets, targets, weights,
+                reverseOffsets, reverseSources, reverseEdges);
+    }
+
+
+    // Id of name in a snapshot being patched from base: base's id, or the next new id on first sight
+    private static int idOf(CompiledGraph base, Map<String, Integer> newIds, List<String> newNames, String name) {
+        int id = base.idOf(name);
+        if (id >= 0) return id;
+        Integer known = newIds.get(name);
+        if (known != null) return known;
+        id = base.nodeCount() + newNames.size();
+        newIds.put(name, id);
+        newNames.add(name);
+        return id;
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    // Returns the dense id of a device, or -1 if it is not part of the snapshot
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id == null && !addedIds.isEmpty()) id = addedIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int firstEdge(int node) {
+        return offsets[node];
+    }
+
+    public int lastEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    // Source node of a forward edge, found by binary search over the CSR offsets
+    public int sourceOf(int edge) {
+        int low = 0;
+        int high = offsets.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= edge) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    public int firstReverseEdge(int node) {
+        return reverseOffsets[node];
+    }
+
+    public int lastReverseEdge(int node) {
+        return reverseOffsets[node + 1];
+    }
+
+    // Source node of an incoming edge
+    public int reverseSource(int reverseEdge) {
+        return reverseSources[reverseEdge];
+    }
+
+    // Forward edge id of an incoming edge, usable with target() and weight()
+    public int forwardEdge(int reverseEdge) {
+        return reverseEdges[reverseEdge];
+    }
+
+    // Components, articulation points and bridges of this snapshot, shared by all queries
+    public ConnectivityAnalysis connectivity() {
+        ConnectivityAnalysis current = connectivity;
+        if (current == null) {
+            synchronized (this) {
+                current = connectivity;
+                if (current == null) {
+                    current = new ConnectivityAnalysis(this);
+                    connectivity = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Landmarks if some query has already selected them, otherwise null; never triggers selection
+    public Landmarks landmarksIfSelected() {
+        return landmarks;
+    }
+
+    // ALT landmark heuristic for this snapshot, computed once and shared by all queries
+    public Landmarks landmarks() {
+        Landmarks current = landmarks;
+        if (current == null) {
+            synchronized (this) {
+                current = landmarks;
+                if (current == null) {
+                    current = Landmarks.select(this, Landmarks.DEFAULT_COUNT);
+                    landmarks = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public void printTopology() {
+        System.out.println("Network Topology:");
+        for (int node = 0; node < names.length; node++) {
+            System.out.print(names[node] + " -> ");
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                System.out.print("(" + names[targets[edge]] + ", " + weights[edge] + ") ");
+            }
+            System.out.println();
+        }
+    }
+
+    // Feature 2: Find Shortest Path (Dijkstra's Algorithm)
+
+    public List<String> findShortestPath(String start, String end) {
+        return findShortestPath(start, end, SearchMode.DIJKSTRA, null);
+    }
+
+    public List<String> findShortestPath(String start, String end, SearchMode mode, DistanceHeuristic heuristic) {
+        int source = idOf(start);
+        int target = idOf(end);
+        if (source < 0) {
+            System.out.println("Error: Start node \"" + start + "\" does not exist in the graph.");
+            return Collections.emptyList();
+        }
+        if (target < 0) {
+            System.out.println("Error: End node \"" + end + "\" does not exist in the graph.");
+            return Collections.emptyList();
+        }
+
+        ShortestPathEngine engine = ShortestPathEngine.forCurrentThread();
+        int distance = engine.search(this, source, target, mode, heuristic);
+
+        if (distance == ShortestPathEngine.UNREACHABLE) {
+            System.out.println("No path found between " + start + " and " + end);
+            List<String> path = new ArrayList<>();
+            path.add(end);
+            return path;
+        }
+
+        List<String> path = toNames(engine.path(target));
+        System.out.println("Shortest Path: " + path);
+        System.out.println("Total Weight: " + distance);
+        return path;
+    }
+
+    // Quiet variant of findShortestPath: returns null if either device is unknown or unreachable
+    public Route route(String start, String end) {
+        return route(start, end, SearchMode.DIJKSTRA, null);
+    }
+
+    public Route route(String start, String end, SearchMode mode, DistanceHeuristic heuristic) {
+        int source = idOf(start);
+        int target = idOf(end);
+        if (source < 0 || target < 0) return null;
+
+        ShortestPathEngine engine = ShortestPathEngine.forCurrentThread();
+        int distance = engine.search(this, source, target, mode, heuristic);
+        if (distance == ShortestPathEngine.UNREACHABLE) return null;
+        return new Route(toNames(engine.path(target)), distance);
+    }
+
+    List<String> toNames(int[] nodes) {
+        List<String> result = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            result.add(names[node]);
+        }
+        return result;
+    }
+
+    // Feature 3: Detect Bottleneck
+
+    public void detectBottlenecks(int threshold) {
+        long started = Metrics.ENABLED ? System.nanoTime() : 0;
+        System.out.println("Bottleneck Connections:");
+        int found = 0;
+        for (int node = 0; node < names.length; node++) {
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                if (weights[edge] > threshold) {
+                    System.out.println(names[node] + " -> " + names[targets[edge]] + " (Weight: " + weights[edge] + ")");
+                    found++;
+                }
+            }
+        }
+        if (Metrics.ENABLED) {
+            Metrics.BOTTLENECK_LINKS.add(found);
+            Metrics.BOTTLENECK_LATENCY.record(System.nanoTime() - started);
+        }
+        if (found == 0) {
+            System.out.println("No bottleneck connections found exceeding the threshold of " + threshold + ".");
+        }
+    }
+
+    public List<String> discoverDevices(String startNode, int depthLimit) {
+        List<String> discoveredDevices = new ArrayList<>();
+        if (depthLimit < 0) return discoveredDevices;
+
+        int start = idOf(startNode);
+        if (start < 0) {
+            // Unknown devices are still reported at depth 0, as Graph does
+            discoveredDevices.add(startNode);
+            return discoveredDevices;
+        }
+
+        // Level-synchronous BFS; large levels are expanded in parallel with the same ordering
+        for (int node : new ParallelBfs(this).discover(start, depthLimit)) {
+            discoveredDevices.add(names[node]);
+        }
+
+        return discoveredDevices;
+    }
+}
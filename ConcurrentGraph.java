@@ -0,0 +1,318 @@
+package networktopology;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Graph that many collector threads can feed while queries run.
+// Writers append under a per-node stripe lock plus the shared side of a publication lock,
+// so edges into different nodes are added in parallel. Queries never see the live lists:
+// they read a compiled snapshot. Every write is also appended to a change log, and a stale
+// snapshot is rebuilt from the previous one plus a prefix of that log, outside every lock
+// writers take, so it always reflects a whole number of completed writes and a rebuild never
+// holds up ingestion.
+public class ConcurrentGraph extends Graph {
+    private static final int STRIPES = 64;
+
+    private final Object[] stripes = new Object[STRIPES];
+    private final ReentrantReadWriteLock publication = new ReentrantReadWriteLock();
+    private final Queue<TopologyChange> changes = new ConcurrentLinkedQueue<>(); // Not yet passed to listeners
+
+    // Snapshot publication: base plus every change in pending is the current topology
+    private final Object log = new Object();
+    private CompiledGraph base = CompiledGraph.fromCsr(new String[0], new int[1], new int[0], new int[0]);
+    private List<TopologyChange> pending = new ArrayList<>();
+    private final Object compiling = new Object(); // Lets one reader at a time rebuild the snapshot
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private volatile BottleneckIndex bottlenecks; // Set once the index has been built
+
+    public ConcurrentGraph() {
+        adjacencyList = new ConcurrentHashMap<>();
+        listeners = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public void addEdge(String source, String destination, int weight) {
+        lockShared();
+        try {
+            adjacencyList.computeIfAbsent(destination, k -> new ArrayList<>());
+            List<Edge> edges = adjacencyList.computeIfAbsent(source, k -> new ArrayList<>());
+            synchronized (stripe(source)) {
+                edges.add(new Edge(destination, weight));
+                record(new TopologyChange(source, destination, TopologyChange.ADDED, weight));
+            }
+            Map<String, List<Edge>> reverse = reverseAdjacencyList;
+            if (reverse != null) {
+                reverse.computeIfAbsent(source, k -> new ArrayList<>());
+                List<Edge> incoming = reverse.computeIfAbsent(destination, k -> new ArrayList<>());
+                synchronized (stripe(destination)) {
+                    incoming.add(new Edge(source, weight));
+                }
+            }
+            modified(); // Still under the shared lock, so no snapshot can miss this edge
+            dispatchChanges();
+        } finally {
+            publication.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updateEdgeWeight(String source, String destination, int weight) {
+        int oldWeight = Integer.MAX_VALUE;
+        lockShared();
+        try {
+            List<Edge> edges = adjacencyList.get(source);
+            if (edges == null) return false;
+            synchronized (stripe(source)) {
+                for (Edge edge : edges) {
+                    if (edge.destination.equals(destination)) {
+                        oldWeight = Math.min(oldWeight, edge.weight);
+                        edge.weight = weight;
+                    }
+                }
+                if (oldWeight == Integer.MAX_VALUE) return false;
+                record(new TopologyChange(source, destination, oldWeight, weight));
+            }
+
+            Map<String, List<Edge>> reverse = reverseAdjacencyList;
+            if (reverse != null) {
+                synchronized (stripe(destination)) {
+                    for (Edge edge : reverse.get(destination)) {
+                        if (edge.destination.equals(source)) edge.weight = weight;
+                    }
+                }
+            }
+            modified();
+            dispatchChanges();
+        } finally {
+            publication.readLock().unlock();
+        }
+        return true;
+    }
+
+    // Takes the shared side of the publication lock, first filling the adjacency lists if the
+    // graph is still backed by a bulk-loaded snapshot (that needs the exclusive side)
+    private void lockShared() {
+        while (true) {
+            materialize();
+            publication.readLock().lock();
+            if (backing == null) return;
+            publication.readLock().unlock(); // Another bulk load got in first
+        }
+    }
+
+    @Override
+    protected void materialize() {
+        if (backing == null) return;
+        publication.writeLock().lock();
+        try {
+            super.materialize();
+        } finally {
+            publication.writeLock().unlock();
+        }
+    }
+
+    // Log a single-link write for the snapshot and the listeners. Called under the stripe lock of
+    // the link's source, so writes to one link are logged in the order they were applied.
+    private void record(TopologyChange change) {
+        synchronized (log) {
+            pending.add(change);
+            snapshot = null;
+        }
+        changes.add(change);
+    }
+
+    // Passes queued changes to the listeners one at a time, in queue order. Changes are queued
+    // under the stripe lock of their source, so two writes to the same link reach every listener
+    // in the order they were applied, and no listener is ever called from two threads at once.
+    // Whichever writer finds the dispatcher busy leaves its change to the thread dispatching,
+    // which re-checks the queue after letting go; writers hold the shared publication lock
+    // meanwhile, so every queued change is delivered before an exclusive section starts.
+    private void dispatchChanges() {
+        while (!changes.isEmpty()) {
+            if (!dispatching.compareAndSet(false, true)) return;
+            try {
+                TopologyChange change;
+                while ((change = changes.poll()) != null) {
+                    for (GraphChangeListener listener : listeners) {
+                        if (change.oldWeight == TopologyChange.ADDED) {
+                            listener.edgeAdded(change.source, change.destination, change.weight);
+                        } else {
+                            listener.edgeWeightChanged(change.source, change.destination, change.oldWeight, change.weight);
+                        }
+                    }
+                }
+            } finally {
+                dispatching.set(false);
+            }
+        }
+    }
+
+    // Bulk loads are published atomically: queries see either none or all of the loaded edges
+    @Override
+    public void addAll(CompiledGraph compiled) {
+        publication.writeLock().lock();
+        try {
+            boolean wasEmpty = adjacencyList.isEmpty() && backing == null;
+            super.addAll(compiled); // An empty graph adopts the loaded snapshot instead
+            if (!wasEmpty) {
+                synchronized (log) {
+                    pending.add(new TopologyChange(compiled));
+                    snapshot = null;
+                }
+            }
+        } finally {
+            publication.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void adoptSnapshot(CompiledGraph compiled) {
+        synchronized (log) {
+            base = compiled;
+            pending = new ArrayList<>();
+            snapshot = compiled; // This class keeps its own change log, so Graph's stays unused
+        }
+    }
+
+    // The exclusive lock is only taken to build the index, so the snapshot it starts from and its
+    // registration as a listener see the same topology; later calls just read the field
+    @Override
+    public BottleneckIndex bottleneckIndex() {
+        BottleneckIndex index = bottlenecks;
+        if (index != null) return index;
+        publication.writeLock().lock();
+        try {
+            index = super.bottleneckIndex();
+            bottlenecks = index;
+            return index;
+        } finally {
+            publication.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public DynamicShortestPathTree subscribeShortestPaths(String root) {
+        publication.writeLock().lock();
+        try {
+            // Build the incoming-edge index now; listeners run under the shared lock and cannot build it later
+            incomingEdges(root);
+            return super.subscribeShortestPaths(root);
+        } finally {
+            publication.writeLock().unlock();
+        }
+    }
+
+    // Graph.compile() walks the live adjacency lists, which writers change under locks it does not
+    // take; the snapshot is the compiled view that is safe to build while writers are active
+    @Override
+    public CompiledGraph compile() {
+        return snapshot();
+    }
+
+    // Rebuilds the snapshot from the last one plus the changes logged since. Writers only wait
+    // for the log lock while the pending list is swapped out, never for the rebuild itself.
+    // The result is published until the next write; if writes arrived during the rebuild it is
+    // still returned, as a consistent view of an earlier moment.
+    @Override
+    public CompiledGraph snapshot() {
+        CompiledGraph current = snapshot;
+        if (current != null) return current;
+
+        synchronized (compiling) {
+            current = snapshot;
+            if (current != null) return current;
+
+            CompiledGraph from;
+            List<TopologyChange> delta;
+            synchronized (log) {
+                from = base;
+                delta = pending;
+                pending = new ArrayList<>();
+            }
+            current = from.withChanges(delta);
+            synchronized (log) {
+                if (base == from) { // Not replaced by a bulk load into the empty graph meanwhile
+                    base = current;
+                    if (pending.isEmpty()) snapshot = current;
+                } else {
+                    current = base;
+                    if (pending.isEmpty()) snapshot = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    @Override
+    public void printTopology() {
+        snapshot().printTopology();
+    }
+
+    // Point-in-time copy of the adjacency lists; the live lists are only safe to read under the locks
+    @Override
+    public Map<String, List<Edge>> getGraphData() {
+        publication.writeLock().lock();
+        try {
+            materialize();
+            Map<String, List<Edge>> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Edge>> entry : adjacencyList.entrySet()) {
+                List<Edge> edges = new ArrayList<>();
+                for (Edge edge : entry.getValue()) {
+                    edges.add(new Edge(edge.destination, edge.weight));
+                }
+                copy.put(entry.getKey(), edges);
+            }
+            return copy;
+        } finally {
+            publication.writeLock().unlock();
+        }
+    }
+
+    @Override
+    List<Edge> outgoingEdges(String node) {
+        materialize();
+        List<Edge> edges = adjacencyList.get(node);
+        if (edges == null) return Collections.emptyList();
+        synchronized (stripe(node)) {
+            return new ArrayList<>(edges);
+        }
+    }
+
+    @Override
+    List<Edge> incomingEdges(String node) {
+        materialize();
+        if (reverseAdjacencyList == null) {
+            publication.writeLock().lock();
+            try {
+                if (reverseAdjacencyList == null) {
+                    Map<String, List<Edge>> reverse = new ConcurrentHashMap<>();
+                    for (Map.Entry<String, List<Edge>> entry : adjacencyList.entrySet()) {
+                        reverse.computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+                        for (Edge edge : entry.getValue()) {
+                            reverse.computeIfAbsent(edge.destination, k -> new ArrayList<>()).add(new Edge(entry.getKey(), edge.weight));
+                        }
+                    }
+                    reverseAdjacencyList = reverse;
+                }
+            } finally {
+                publication.writeLock().unlock();
+            }
+        }
+        List<Edge> edges = reverseAdjacencyList.get(node);
+        if (edges == null) return Collections.emptyList();
+        synchronized (stripe(node)) {
+            return new ArrayList<>(edges);
+        }
+    }
+
+    private Object stripe(String node) {
+        return stripes[(node.hashCode() & 0x7fffffff) % STRIPES];
+    }
+}
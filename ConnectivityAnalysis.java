@@ -0,0 +1,230 @@
+package networktopology;
+
+import java.util.*;
+
+// Single points of failure of a CompiledGraph: strongly connected components over the directed
+// links, and connected components, articulation points and bridges over the undirected view
+// (forward edges plus the reverse index). All searches are Tarjan's algorithm run with explicit
+// int stacks, so deep topologies cannot overflow the call stack, in O(V + E) time.
+public class ConnectivityAnalysis {
+    private final CompiledGraph graph;
+
+    // Undirected pass results, computed on first use
+    private boolean[] articulation;
+    private int[] bridgeEdges; // Encoded edge of each bridge, see neighbor()
+    private int bridgeCount;
+
+    public ConnectivityAnalysis(CompiledGraph graph) {
+        this.graph = graph;
+    }
+
+    // Component number of every node plus the number of components
+    public static class Components {
+        public final int count;
+        public final int[] componentOf;
+
+        Components(int count, int[] componentOf) {
+            this.count = count;
+            this.componentOf = componentOf;
+        }
+
+        // Node count of every component
+        public int[] sizes() {
+            int[] sizes = new int[count];
+            for (int component : componentOf) {
+                sizes[component]++;
+            }
+            return sizes;
+        }
+    }
+
+    // Strongly connected components, numbered in reverse topological order of the condensation
+    public Components stronglyConnected() {
+        int nodeCount = graph.nodeCount();
+        int[] index = new int[nodeCount];
+        int[] low = new int[nodeCount];
+        int[] componentOf = new int[nodeCount];
+        int[] cursor = new int[nodeCount];
+        int[] callStack = new int[nodeCount];
+        int[] stack = new int[nodeCount]; // Tarjan stack; a node is on it while indexed but unassigned
+        Arrays.fill(index, -1);
+        Arrays.fill(componentOf, -1);
+        int counter = 0;
+        int components = 0;
+        int stackSize = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] >= 0) continue;
+            int depth = 0;
+            index[root] = low[root] = counter++;
+            cursor[root] = graph.firstEdge(root);
+            stack[stackSize++] = root;
+            callStack[depth++] = root;
+
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (cursor[node] < graph.lastEdge(node)) {
+                    int next = graph.target(cursor[node]++);
+                    if (index[next] < 0) {
+                        index[next] = low[next] = counter++;
+                        cursor[next] = graph.firstEdge(next);
+                        stack[stackSize++] = next;
+                        callStack[depth++] = next;
+                    } else if (componentOf[next] < 0) {
+                        low[node] = Math.min(low[node], index[next]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (low[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        componentOf[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+            }
+        }
+        return new Components(components, componentOf);
+    }
+
+    // Connected components when every link is treated as undirected
+    public Components connected() {
+        int nodeCount = graph.nodeCount();
+        int[] componentOf = new int[nodeCount];
+        int[] queue = new int[nodeCount];
+        Arrays.fill(componentOf, -1);
+        int components = 0;
+        for (int root = 0; root < nodeCount; root++) {
+            if (componentOf[root] >= 0) continue;
+            int head = 0;
+            int tail = 0;
+            componentOf[root] = components;
+            queue[tail++] = root;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                    int next = graph.target(edge);
+                    if (componentOf[next] < 0) {
+                        componentOf[next] = components;
+                        queue[tail++] = next;
+                    }
+                }
+                for (int edge = graph.firstReverseEdge(node); edge < graph.lastReverseEdge(node); edge++) {
+                    int next = graph.reverseSource(edge);
+                    if (componentOf[next] < 0) {
+                        componentOf[next] = components;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            components++;
+        }
+        return new Components(components, componentOf);
+    }
+
+    // Devices whose removal disconnects the devices around them, in node order
+    public synchronized List<String> articulationPoints() {
+        analyzeUndirected();
+        List<String> result = new ArrayList<>();
+        for (int node = 0; node < articulation.length; node++) {
+            if (articulation[node]) result.add(graph.nameOf(node));
+        }
+        return result;
+    }
+
+    public synchronized boolean isArticulationPoint(int node) {
+        analyzeUndirected();
+        return articulation[node];
+    }
+
+    // Links whose removal disconnects their endpoints, reported in the direction they were added.
+    // Links added in both directions between two devices count as one link.
+    public synchronized List<Link> bridges() {
+        analyzeUndirected();
+        int edgeCount = graph.edgeCount();
+        List<Link> result = new ArrayList<>(bridgeCount);
+        for (int i = 0; i < bridgeCount; i++) {
+            int encoded = bridgeEdges[i];
+            int edge = encoded < edgeCount ? encoded : graph.forwardEdge(encoded - edgeCount);
+            int source = encoded < edgeCount ? graph.sourceOf(edge) : graph.reverseSource(encoded - edgeCount);
+            result.add(new Link(graph.nameOf(source), graph.nameOf(graph.target(edge)), graph.weight(edge)));
+        }
+        return result;
+    }
+
+    // One DFS over the undirected view finds both articulation points and bridges. Neighbors of
+    // a node are visited through an encoded cursor: forward edge e is e, reverse entry r is
+    // edgeCount + r. All links back to the DFS parent are skipped, so a link stored in both
+    // directions is treated as a single link.
+    private void analyzeUndirected() {
+        if (articulation != null) return;
+        int nodeCount = graph.nodeCount();
+        int edgeCount = graph.edgeCount();
+        int[] discovered = new int[nodeCount];
+        int[] low = new int[nodeCount];
+        int[] parent = new int[nodeCount];
+        int[] via = new int[nodeCount]; // Encoded edge the DFS arrived through
+        int[] cursor = new int[nodeCount];
+        int[] callStack = new int[nodeCount];
+        boolean[] cut = new boolean[nodeCount];
+        int[] found = new int[16];
+        int foundCount = 0;
+        Arrays.fill(discovered, -1);
+        int time = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (discovered[root] >= 0) continue;
+            int depth = 0;
+            int rootChildren = 0;
+            discovered[root] = low[root] = time++;
+            parent[root] = -1;
+            cursor[root] = graph.firstEdge(root);
+            callStack[depth++] = root;
+
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                int position = cursor[node];
+                if (position == graph.lastEdge(node)) {
+                    position = edgeCount + graph.firstReverseEdge(node);
+                }
+                if (position < edgeCount + graph.lastReverseEdge(node)) {
+                    cursor[node] = position + 1;
+                    int next = position < edgeCount ? graph.target(position) : graph.reverseSource(position - edgeCount);
+                    if (next == node || next == parent[node]) continue;
+                    if (discovered[next] < 0) {
+                        discovered[next] = low[next] = time++;
+                        parent[next] = node;
+                        via[next] = position;
+                        cursor[next] = graph.firstEdge(next);
+                        callStack[depth++] = next;
+                        if (node == root) rootChildren++;
+                    } else {
+                        low[node] = Math.min(low[node], discovered[next]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                int up = parent[node];
+                if (up < 0) continue;
+                low[up] = Math.min(low[up], low[node]);
+                if (low[node] > discovered[up]) {
+                    if (foundCount == found.length) found = Arrays.copyOf(found, foundCount * 2);
+                    found[foundCount++] = via[node];
+                }
+                if (up != root && low[node] >= discovered[up]) cut[up] = true;
+            }
+            if (rootChildren > 1) cut[root] = true;
+        }
+        bridgeEdges = found;
+        bridgeCount = foundCount;
+        articulation = cut;
+    }
+}
@@ -5,22 +5,153 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import javax.swing.table.DefaultTableModel;
+import java.util.concurrent.ExecutionException;
 
 
 public class DeviceDiscoveryUI {
     private Graph graph;
     private JTextArea logArea; // Real-time log area
     private JTable outputTable; // Table for displaying discovered devices
-    private DefaultTableModel tableModel; // Table model for managing table data
+    private DiscoveryTableModel tableModel; // Columnar rows; JTable only formats the visible ones
     private JLabel statusBar; // Status bar
     private JProgressBar progressBar; // Progress bar
+    private JButton discoverButton;
+    private JButton cancelButton;
+    private DiscoveryWorker worker;   // Running discovery, if any
+    private DiscoveryResult lastResult; // Last completed discovery, reused while the graph is unchanged
+
+    static final int PUBLISH_CHUNK = 4096; // Devices per published batch
 
     public DeviceDiscoveryUI(Graph graph) {
         this.graph = graph;
     }
 
+    // Devices found by one discovery, grouped by depth level
+    static class DiscoveryResult {
+        final long modifications; // graph.modificationCount() before the search; any write since changes it
+        final String startNode;
+        final int depthLimit;
+        final List<String> devices = new ArrayList<>();
+        final List<Integer> levelEnds = new ArrayList<>(); // devices.size() after each level
+        boolean exhausted; // The search ran out of devices before reaching depthLimit
+
+        DiscoveryResult(long modifications, String startNode, int depthLimit) {
+            this.modifications = modifications;
+            this.startNode = startNode;
+            this.depthLimit = depthLimit;
+        }
+
+        // Devices within depthLimit hops if this result covers that query, otherwise null
+        List<String> devicesWithin(long currentModifications, String start, int limit) {
+            if (currentModifications != modifications || !startNode.equals(start)) return null;
+            if (limit < levelEnds.size()) return Collections.unmodifiableList(devices.subList(0, levelEnds.get(limit)));
+            return exhausted || limit == depthLimit ? Collections.unmodifiableList(devices) : null;
+        }
+    }
+
+    // One published batch of devices, all from the same depth level
+    static class Batch {
+        final int depth;
+        final List<String> devices;
+
+        Batch(int depth, List<String> devices) {
+            this.depth = depth;
+            this.devices = devices;
+        }
+    }
+
+    // Runs the BFS off the EDT and streams each level to the table in PUBLISH_CHUNK batches
+    private class DiscoveryWorker extends SwingWorker<DiscoveryResult, Batch> {
+        private final String startNode;
+        private final int depthLimit;
+        private final boolean report; // Write the report file when done
+        private int shown;
+
+        DiscoveryWorker(String startNode, int depthLimit, boolean report) {
+            this.startNode = startNode;
+            this.depthLimit = depthLimit;
+            this.report = report;
+        }
+
+        @Override
+        protected DiscoveryResult doInBackground() {
+            long modifications = graph.modificationCount(); // Read first, so a concurrent write misses the cache
+            CompiledGraph topology = graph.snapshot();
+            DiscoveryResult result = new DiscoveryResult(modifications, startNode, depthLimit);
+            int start = topology.idOf(startNode);
+            if (start < 0) {
+                // Unknown devices are still reported at depth 0, as Graph.discoverDevices does
+                result.devices.add(startNode);
+                result.levelEnds.add(1);
+                result.exhausted = true;
+                publish(new Batch(0, Collections.singletonList(startNode)));
+                return result;
+            }
+
+            int[] lastDepth = {-1};
+            new ParallelBfs(topology).discover(start, depthLimit, (depth, nodes) -> {
+                for (int from = 0; from < nodes.length && !isCancelled(); from += PUBLISH_CHUNK) {
+                    int to = Math.min(nodes.length, from + PUBLISH_CHUNK);
+                    List<String> names = new ArrayList<>(to - from);
+                    for (int i = from; i < to; i++) {
+                        names.add(topology.nameOf(nodes[i]));
+                    }
+                    result.devices.addAll(names);
+                    publish(new Batch(depth, names));
+                }
+                result.levelEnds.add(result.devices.size());
+                lastDepth[0] = depth;
+                return !isCancelled();
+            });
+            result.exhausted = lastDepth[0] < depthLimit;
+            return result;
+        }
+
+        @Override
+        protected void process(List<Batch> batches) {
+            if (isCancelled()) return;
+            int depth = 0;
+            for (Batch batch : batches) {
+                tableModel.addDevices(batch.depth, batch.devices);
+                shown += batch.devices.size();
+                depth = batch.depth;
+            }
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(depthLimit == 0 ? 100 : Math.min(100, 100 * depth / depthLimit));
+            progressBar.setString("Depth " + depth + " of " + depthLimit + " (" + shown + " devices)");
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) return; // Superseded by a newer discovery, which owns the UI now
+            worker = null;
+            discoverButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            progressBar.setIndeterminate(false);
+            if (isCancelled()) {
+                progressBar.setString("Cancelled");
+                statusBar.setText("Device discovery cancelled.");
+                log("Device discovery cancelled after " + shown + " devices.");
+                return;
+            }
+            try {
+                DiscoveryResult result = get();
+                lastResult = result;
+                progressBar.setValue(100);
+                progressBar.setString(result.devices.size() + " devices");
+                statusBar.setText("Device discovery complete!");
+                log("Device discovery complete!");
+                if (report) writeReport(startNode, depthLimit, result.devices);
+            } catch (InterruptedException | ExecutionException ex) {
+                statusBar.setText("Device discovery failed.");
+                log("Device discovery failed: " + ex.getMessage());
+            }
+        }
+    }
+
     public void createAndShowGUI() {
         // Create JFrame
         JFrame frame = new JFrame("Device Discovery Tool");
@@ -40,16 +171,18 @@ public class DeviceDiscoveryUI {
 
         // Create Buttons Panel
         JPanel buttonPanel = new JPanel();
-        JButton discoverButton = new JButton("Discover Devices");
+        discoverButton = new JButton("Discover Devices");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
         JButton reportButton = new JButton("Generate Report");
         JButton clearButton = new JButton("Clear");
         buttonPanel.add(discoverButton);
+        buttonPanel.add(cancelButton);
         buttonPanel.add(reportButton);
         buttonPanel.add(clearButton);
 
         // Create Output Table
-        String[] columnNames = {"Device Name", "Connection Type", "Latency"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new DiscoveryTableModel();
         outputTable = new JTable(tableModel);
         JScrollPane tableScrollPane = new JScrollPane(outputTable);
 
@@ -89,20 +222,19 @@ public class DeviceDiscoveryUI {
                     return;
                 }
 
-                // Perform Device Discovery
-                log("Starting device discovery...");
-                progressBar.setIndeterminate(true);
-                List<String> discoveredDevices = graph.discoverDevices(startNode, depthLimit);
-                tableModel.setRowCount(0); // Clear existing table data
-
-                for (String device : discoveredDevices) {
-                    // Example: Add device data to table
-                    tableModel.addRow(new Object[]{device, "Ethernet", Math.random() * 100 + "ms"});
+                // Perform Device Discovery in the background
+                tableModel.clear(); // Clear existing table data
+                List<String> cached = cachedDevices(startNode, depthLimit);
+                if (cached != null) {
+                    tableModel.setDevices(cached, lastResult.levelEnds);
+                    progressBar.setValue(100);
+                    progressBar.setString(cached.size() + " devices");
+                    statusBar.setText("Device discovery complete!");
+                    log("Device discovery complete (cached result).");
+                    return;
                 }
-
-                progressBar.setIndeterminate(false);
-                statusBar.setText("Device discovery complete!");
-                log("Device discovery complete!");
+                log("Starting device discovery...");
+                startDiscovery(startNode, depthLimit, false);
 
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(frame, "Depth limit must be a valid number.", "Input Error", JOptionPane.ERROR_MESSAGE);
@@ -127,12 +259,15 @@ public class DeviceDiscoveryUI {
                     return;
                 }
 
-                // Perform Device Discovery and Generate Report
+                // Generate the report from the last discovery when it covers this query
                 log("Generating report...");
-                List<String> discoveredDevices = graph.discoverDevices(startNode, depthLimit);
-                generateReport(startNode, depthLimit, discoveredDevices);
-                statusBar.setText("Report generated successfully!");
-                log("Report generated successfully!");
+                List<String> cached = cachedDevices(startNode, depthLimit);
+                if (cached != null) {
+                    writeReport(startNode, depthLimit, cached);
+                } else {
+                    tableModel.clear();
+                    startDiscovery(startNode, depthLimit, true);
+                }
 
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(frame, "Depth limit must be a valid number.", "Input Error", JOptionPane.ERROR_MESSAGE);
@@ -141,11 +276,17 @@ public class DeviceDiscoveryUI {
             }
         });
 
+        // Cancel Button Action
+        cancelButton.addActionListener(e -> {
+            if (worker != null) worker.cancel(false);
+        });
+
         // Clear Button Action
         clearButton.addActionListener(e -> {
+            if (worker != null) worker.cancel(false);
             startNodeField.setText("");
             depthLimitField.setText("");
-            tableModel.setRowCount(0);
+            tableModel.clear();
             logArea.setText("");
             statusBar.setText("Ready");
             log("Fields and data cleared.");
@@ -164,7 +305,46 @@ public class DeviceDiscoveryUI {
         frame.setVisible(true);
     }
 
-    private void generateReport(String startNode, int depthLimit, List<String> discoveredDevices) {
+    // Devices of the last discovery if it answers (start, depth) and the graph has not changed since.
+    // Only compares modification counts, so the EDT never compiles a snapshot here.
+    private List<String> cachedDevices(String startNode, int depthLimit) {
+        return lastResult == null ? null : lastResult.devicesWithin(graph.modificationCount(), startNode, depthLimit);
+    }
+
+    private void startDiscovery(String startNode, int depthLimit, boolean report) {
+        if (worker != null) worker.cancel(false);
+        progressBar.setIndeterminate(true);
+        progressBar.setValue(0);
+        progressBar.setString("Discovering...");
+        discoverButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        worker = new DiscoveryWorker(startNode, depthLimit, report);
+        worker.execute();
+    }
+
+    // Write the report file in the background and confirm on the EDT
+    private void writeReport(String startNode, int depthLimit, List<String> discoveredDevices) {
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws IOException {
+                return generateReport(startNode, depthLimit, discoveredDevices);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    JOptionPane.showMessageDialog(null, "Report generated successfully: " + get());
+                    statusBar.setText("Report generated successfully!");
+                    log("Report generated successfully!");
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(null, "Error generating report: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private String generateReport(String startNode, int depthLimit, List<String> discoveredDevices) throws IOException {
         String fileName = "DeviceDiscoveryReport.txt";
 
         try (FileWriter writer = new FileWriter(fileName)) {
@@ -178,11 +358,8 @@ public class DeviceDiscoveryUI {
             for (String device : discoveredDevices) {
                 writer.write("- " + device + "\n");
             }
-
-            JOptionPane.showMessageDialog(null, "Report generated successfully: " + fileName);
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error generating report: " + e.getMessage());
         }
+        return fileName;
     }
 
     private void log(String message) {
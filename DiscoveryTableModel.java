@@ -0,0 +1,125 @@
+package networktopology;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Table model over discovery results held in columns: device names, one latency value per row
+// and the row counts at the end of each depth level. Cells are formatted only when JTable asks
+// for them, i.e. for the visible rows, and every append fires one event for all its rows.
+public class DiscoveryTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"Device Name", "Connection Type", "Latency", "Depth"};
+
+    private String[] names = new String[1024];
+    private float[] latencies = new float[1024]; // Example latency in ms, fixed when the row is added
+    private int[] levelEnds = new int[16];        // Row count after each depth level
+    private int levels;
+    private int rows;
+    private final Random random = new Random();
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 3 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0:
+                return names[row];
+            case 1:
+                return "Ethernet";
+            case 2:
+                return latencies[row] + "ms";
+            default:
+                return depthOf(row);
+        }
+    }
+
+    public String deviceAt(int row) {
+        return names[row];
+    }
+
+    // Append one batch of devices found at the given depth (depths never decrease)
+    public void addDevices(int depth, List<String> devices) {
+        if (devices.isEmpty()) return;
+        int first = rows;
+        ensureRows(rows + devices.size());
+        for (String device : devices) {
+            names[rows] = device;
+            latencies[rows] = (float) (random.nextDouble() * 100);
+            rows++;
+        }
+        while (levels <= depth) {
+            if (levels == levelEnds.length) levelEnds = Arrays.copyOf(levelEnds, levels * 2);
+            levelEnds[levels] = levels == 0 ? 0 : levelEnds[levels - 1];
+            levels++;
+        }
+        levelEnds[depth] = rows;
+        fireTableRowsInserted(first, rows - 1);
+    }
+
+    // Replace the contents with a complete result; levelEnds[d] is the row count after depth d
+    public void setDevices(List<String> devices, List<Integer> levelEnds) {
+        rows = 0;
+        levels = 0;
+        ensureRows(devices.size());
+        int from = 0;
+        for (int depth = 0; depth < levelEnds.size() && from < devices.size(); depth++) {
+            int to = Math.min(levelEnds.get(depth), devices.size());
+            for (int i = from; i < to; i++) {
+                names[rows] = devices.get(i);
+                latencies[rows] = (float) (random.nextDouble() * 100);
+                rows++;
+            }
+            if (levels == this.levelEnds.length) this.levelEnds = Arrays.copyOf(this.levelEnds, levels * 2);
+            this.levelEnds[levels++] = rows;
+            from = to;
+        }
+        Arrays.fill(names, rows, names.length, null);
+        fireTableDataChanged();
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, rows, null);
+        rows = 0;
+        levels = 0;
+        fireTableDataChanged();
+    }
+
+    private int depthOf(int row) {
+        int low = 0;
+        int high = levels - 1;
+        while (low < high) { // First level whose end is beyond row
+            int mid = (low + high) >>> 1;
+            if (levelEnds[mid] > row) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+
+    private void ensureRows(int needed) {
+        if (needed <= names.length) return;
+        int capacity = Math.max(needed, names.length * 2);
+        names = Arrays.copyOf(names, capacity);
+        latencies = Arrays.copyOf(latencies, capacity);
+    }
+}
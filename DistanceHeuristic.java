@@ -0,0 +1,8 @@
+package networktopology;
+
+// Lower bound on the shortest distance between two nodes of a CompiledGraph.
+// Implementations must never overestimate and must be consistent
+// (estimate(u, t) <= weight(u, v) + estimate(v, t)) for searches to stay exact.
+public interface DistanceHeuristic {
+    int estimate(int from, int to);
+}
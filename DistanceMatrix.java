@@ -0,0 +1,30 @@
+package networktopology;
+
+// Compact all-pairs distance table stored row-major in a single int[]
+public class DistanceMatrix {
+    private final CompiledGraph graph;
+    private final int size;
+    private final int[] distances;
+
+    DistanceMatrix(CompiledGraph graph, int[] distances) {
+        this.graph = graph;
+        this.size = graph.nodeCount();
+        this.distances = distances;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Distance between two node ids, or ShortestPathEngine.UNREACHABLE
+    public int distance(int from, int to) {
+        return distances[from * size + to];
+    }
+
+    public int distance(String from, String to) {
+        int source = graph.idOf(from);
+        int target = graph.idOf(to);
+        if (source < 0 || target < 0) return ShortestPathEngine.UNREACHABLE;
+        return distance(source, target);
+    }
+}
@@ -0,0 +1,155 @@
+package networktopology;
+
+import java.util.*;
+
+// Shortest-path tree from a fixed root that is repaired in place as the Graph changes,
+// following Ramalingam-Reps: an added or cheaper edge only propagates improvements
+// forward from its target, while a more expensive tree edge only reruns Dijkstra over
+// the subtree that hung below it. Distance queries are then plain O(1) map lookups.
+public class DynamicShortestPathTree implements GraphChangeListener {
+    private final Graph graph;
+    private final String root;
+    private final Map<String, Integer> distances = new HashMap<>();
+    private final Map<String, String> parents = new HashMap<>();
+
+    // compiled must be the graph's current topology, and the tree must be registered as a
+    // listener before the graph changes again, or the changes in between are never applied
+    DynamicShortestPathTree(Graph graph, String root, CompiledGraph compiled) {
+        this.graph = graph;
+        this.root = root;
+        distances.put(root, 0);
+
+        // Seed the tree with one full Dijkstra over the snapshot
+        int rootId = compiled.idOf(root);
+        if (rootId >= 0) {
+            ShortestPathEngine engine = ShortestPathEngine.forCurrentThread();
+            engine.run(compiled, rootId, -1);
+            for (int node = 0; node < compiled.nodeCount(); node++) {
+                if (!engine.reached(node)) continue;
+                distances.put(compiled.nameOf(node), engine.distance(node));
+                int parent = engine.predecessor(node);
+                if (parent >= 0) parents.put(compiled.nameOf(node), compiled.nameOf(parent));
+            }
+        }
+    }
+
+    public String root() {
+        return root;
+    }
+
+    // Distance from the root, or ShortestPathEngine.UNREACHABLE
+    public synchronized int distanceTo(String device) {
+        Integer distance = distances.get(device);
+        return distance == null ? ShortestPathEngine.UNREACHABLE : distance;
+    }
+
+    // Previous hop on the shortest path from the root, or null for the root and unreachable devices
+    public synchronized String parentOf(String device) {
+        return parents.get(device);
+    }
+
+    // Path from the root to device, or an empty list if it is unreachable
+    public synchronized List<String> pathTo(String device) {
+        if (!distances.containsKey(device)) return Collections.emptyList();
+        List<String> path = new ArrayList<>();
+        for (String at = device; at != null; at = parents.get(at)) {
+            path.add(at);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Stop receiving updates; the tree keeps answering from its last state
+    public void close() {
+        graph.removeChangeListener(this);
+    }
+
+    @Override
+    public synchronized void edgeAdded(String source, String destination, int weight) {
+        improve(source, destination, weight);
+    }
+
+    @Override
+    public synchronized void edgeWeightChanged(String source, String destination, int oldWeight, int newWeight) {
+        if (newWeight < oldWeight) {
+            improve(source, destination, newWeight);
+        } else if (newWeight > oldWeight && source.equals(parents.get(destination))) {
+            repairSubtree(destination);
+        }
+        // Heavier non-tree edges cannot change any shortest distance
+    }
+
+    // A cheaper way into destination: relax it and push the gain through its descendants
+    private void improve(String source, String destination, int weight) {
+        Integer sourceDistance = distances.get(source);
+        if (sourceDistance == null) return;
+
+        int newDist = sourceDistance + weight;
+        Integer current = distances.get(destination);
+        if (current != null && newDist >= current) return;
+
+        distances.put(destination, newDist);
+        parents.put(destination, source);
+        PriorityQueue<Graph.Node> queue = new PriorityQueue<>(Comparator.comparingInt(node -> node.distance));
+        queue.add(new Graph.Node(destination, newDist));
+        propagate(queue);
+    }
+
+    // A tree edge into top got heavier: only top's subtree can be affected
+    private void repairSubtree(String top) {
+        Set<String> affected = new LinkedHashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        affected.add(top);
+        stack.push(top);
+        while (!stack.isEmpty()) {
+            String current = stack.pop();
+            for (Graph.Edge edge : graph.outgoingEdges(current)) {
+                if (current.equals(parents.get(edge.destination)) && affected.add(edge.destination)) {
+                    stack.push(edge.destination);
+                }
+            }
+        }
+
+        for (String node : affected) {
+            distances.remove(node);
+            parents.remove(node);
+        }
+
+        // Each affected node restarts from its best link into the unaffected part of the tree
+        PriorityQueue<Graph.Node> queue = new PriorityQueue<>(Comparator.comparingInt(node -> node.distance));
+        for (String node : affected) {
+            long best = Long.MAX_VALUE;
+            String bestParent = null;
+            for (Graph.Edge edge : graph.incomingEdges(node)) {
+                Integer parentDistance = distances.get(edge.destination);
+                if (parentDistance != null && (long) parentDistance + edge.weight < best) {
+                    best = (long) parentDistance + edge.weight;
+                    bestParent = edge.destination;
+                }
+            }
+            if (bestParent != null) {
+                distances.put(node, (int) best);
+                parents.put(node, bestParent);
+                queue.add(new Graph.Node(node, (int) best));
+            }
+        }
+        propagate(queue);
+    }
+
+    private void propagate(PriorityQueue<Graph.Node> queue) {
+        while (!queue.isEmpty()) {
+            Graph.Node current = queue.poll();
+            if (current.distance > distances.get(current.name)) continue; // Stale entry
+
+            for (Graph.Edge edge : graph.outgoingEdges(current.name)) {
+                int newDist = current.distance + edge.weight;
+                Integer known = distances.get(edge.destination);
+                if (known == null || newDist < known) {
+                    distances.put(edge.destination, newDist);
+                    parents.put(edge.destination, current.name);
+                    queue.add(new Graph.Node(edge.destination, newDist));
+                }
+            }
+        }
+    }
+}
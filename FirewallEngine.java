@@ -0,0 +1,215 @@
+package networktopology;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+// Compiled, immutable view of a firewall rule list.
+// Rules are indexed by destination, then source, then protocol, then port range:
+//   - addresses go into a binary PrefixTrie per IP family (exact IPs are full-length prefixes),
+//     with a hash table for plain device names and a slot for "*";
+//   - each (destination, source, protocol) leaf holds a PortRangeIndex over its rules.
+// A lookup walks at most address-width trie nodes per dimension and keeps the lowest matching
+// rule index, so it returns exactly the rule a linear first-match scan would, without
+// expanding subnets or port ranges into individual rules.
+public class FirewallEngine {
+    public static final String ALLOWED = "Allowed";
+    public static final String BLOCKED = "Blocked";
+    public static final String ANY = "*";
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+    private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[IpAddress.SCRATCH_SIZE]);
+
+    private final FirewallRule[] rules;
+    private final AddressTable<AddressTable<ProtocolTable>> destinations = new AddressTable<>();
+
+    public FirewallEngine(List<FirewallRule> ruleList) {
+        rules = ruleList.toArray(new FirewallRule[0]);
+        long[] scratch = new long[IpAddress.SCRATCH_SIZE];
+        List<ProtocolTable> leaves = new ArrayList<>();
+        for (int index = 0; index < rules.length; index++) {
+            FirewallRule rule = rules[index];
+            AddressTable<ProtocolTable> sources = destinations.slotFor(rule.destination, AddressTable::new, scratch);
+            ProtocolTable leaf = sources.slotFor(rule.source, () -> {
+                ProtocolTable created = new ProtocolTable();
+                leaves.add(created);
+                return created;
+            }, scratch);
+            leaf.add(rule.protocol, rule.port, rule.portEnd, index);
+        }
+        for (ProtocolTable leaf : leaves) {
+            leaf.freeze();
+        }
+    }
+
+    public int ruleCount() {
+        return rules.length;
+    }
+
+    public FirewallRule rule(int index) {
+        return rules[index];
+    }
+
+    // Index of the first rule matching the traffic, or -1 if none applies
+    public int match(String source, String destination, int port, String protocol) {
+        long[] scratch = SCRATCH.get();
+        int sourceFamily = IpAddress.parse(source, scratch);
+        long sourceHigh = scratch[0];
+        long sourceLow = scratch[1];
+        int destinationFamily = IpAddress.parse(destination, scratch);
+        long destinationHigh = scratch[0];
+        long destinationLow = scratch[1];
+
+        AddressTable<AddressTable<ProtocolTable>> table = destinations;
+        int best = NO_MATCH;
+        best = Math.min(best, matchSources(table.any, source, sourceFamily, sourceHigh, sourceLow, port, protocol));
+        best = Math.min(best, matchSources(table.names.get(destination), source, sourceFamily, sourceHigh, sourceLow, port, protocol));
+        if (destinationFamily != IpAddress.NOT_IP) {
+            PrefixTrie trie = table.trie(destinationFamily);
+            int width = IpAddress.width(destinationFamily);
+            for (int bit = 0, node = PrefixTrie.ROOT; node >= 0; bit++) {
+                int slot = trie.value(node);
+                if (slot >= 0) {
+                    best = Math.min(best, matchSources(table.slots.get(slot), source, sourceFamily, sourceHigh, sourceLow, port, protocol));
+                }
+                if (bit == width) break;
+                node = trie.child(node, IpAddress.bit(destinationHigh, destinationLow, bit));
+            }
+        }
+        return best == NO_MATCH ? -1 : best;
+    }
+
+    private static int matchSources(AddressTable<ProtocolTable> table, String source, int family, long high, long low,
+                                    int port, String protocol) {
+        if (table == null) return NO_MATCH;
+        int best = NO_MATCH;
+        best = Math.min(best, matchProtocol(table.any, port, protocol));
+        best = Math.min(best, matchProtocol(table.names.get(source), port, protocol));
+        if (family != IpAddress.NOT_IP) {
+            PrefixTrie trie = table.trie(family);
+            int width = IpAddress.width(family);
+            for (int bit = 0, node = PrefixTrie.ROOT; node >= 0; bit++) {
+                int slot = trie.value(node);
+                if (slot >= 0) {
+                    best = Math.min(best, matchProtocol(table.slots.get(slot), port, protocol));
+                }
+                if (bit == width) break;
+                node = trie.child(node, IpAddress.bit(high, low, bit));
+            }
+        }
+        return best;
+    }
+
+    private static int matchProtocol(ProtocolTable table, int port, String protocol) {
+        return table == null ? NO_MATCH : table.match(port, protocol);
+    }
+
+    // Traffic is allowed unless the first matching rule blocks it
+    public boolean isAllowed(String source, String destination, int port, String protocol) {
+        return allows(match(source, destination, port, protocol));
+    }
+
+    // Verdict for a result of match()
+    boolean allows(int index) {
+        return index < 0 || !rules[index].action.equals("BLOCK");
+    }
+
+    public String evaluate(String source, String destination, int port, String protocol) {
+        return isAllowed(source, destination, port, protocol) ? ALLOWED : BLOCKED;
+    }
+
+    // One dimension of the index: CIDR tries per IP family, exact device names and a wildcard slot
+    private static class AddressTable<T> {
+        final PrefixTrie ipv4 = new PrefixTrie();
+        final PrefixTrie ipv6 = new PrefixTrie();
+        final List<T> slots = new ArrayList<>();
+        final Map<String, T> names = new HashMap<>();
+        T any;
+
+        PrefixTrie trie(int family) {
+            return family == IpAddress.IPV4 ? ipv4 : ipv6;
+        }
+
+        T slotFor(String spec, Supplier<T> factory, long[] scratch) {
+            if (ANY.equals(spec)) {
+                if (any == null) any = factory.get();
+                return any;
+            }
+            int family = IpAddress.parsePrefix(spec, scratch);
+            if (family == IpAddress.NOT_IP) {
+                return names.computeIfAbsent(spec, k -> factory.get());
+            }
+            PrefixTrie trie = trie(family);
+            int node = trie.insert(scratch[0], scratch[1], (int) scratch[2]);
+            if (trie.value(node) < 0) {
+                trie.setValue(node, slots.size());
+                slots.add(factory.get());
+            }
+            return slots.get(trie.value(node));
+        }
+    }
+
+    // Port ranges per protocol for one (destination, source) pair
+    private static class ProtocolTable {
+        private final TreeMap<String, RangeList> byProtocol = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final TreeMap<String, PortRangeIndex> compiled = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private RangeList anyProtocol;
+        private PortRangeIndex anyCompiled;
+
+        void add(String protocol, int start, int end, int rule) {
+            RangeList ranges;
+            if (ANY.equals(protocol)) {
+                if (anyProtocol == null) anyProtocol = new RangeList();
+                ranges = anyProtocol;
+            } else {
+                ranges = byProtocol.computeIfAbsent(protocol, k -> new RangeList());
+            }
+            ranges.add(start, end, rule);
+        }
+
+        void freeze() {
+            for (Map.Entry<String, RangeList> entry : byProtocol.entrySet()) {
+                compiled.put(entry.getKey(), entry.getValue().build());
+            }
+            if (anyProtocol != null) anyCompiled = anyProtocol.build();
+            byProtocol.clear();
+            anyProtocol = null;
+        }
+
+        int match(int port, String protocol) {
+            int best = NO_MATCH;
+            PortRangeIndex ranges = compiled.get(protocol);
+            if (ranges != null) {
+                int rule = ranges.match(port);
+                if (rule >= 0) best = rule;
+            }
+            if (anyCompiled != null) {
+                int rule = anyCompiled.match(port);
+                if (rule >= 0) best = Math.min(best, rule);
+            }
+            return best;
+        }
+    }
+
+    private static class RangeList {
+        int[] starts = new int[4];
+        int[] ends = new int[4];
+        int[] rules = new int[4];
+        int size;
+
+        void add(int start, int end, int rule) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                rules = Arrays.copyOf(rules, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            rules[size] = rule;
+            size++;
+        }
+
+        PortRangeIndex build() {
+            return new PortRangeIndex(starts, ends, rules, size);
+        }
+    }
+}
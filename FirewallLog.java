@@ -6,6 +6,7 @@ public class FirewallLog {
     public int port;
     public String protocol;
     public String status;
+    public long timestamp; // Milliseconds since the epoch
 
     public FirewallLog(String source, String destination, int port, String protocol, String status) {
         this.source = source;
@@ -3,8 +3,11 @@ package networktopology;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.io.FileWriter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import networktopology.FirewallRule;
@@ -12,11 +15,95 @@ import networktopology.FirewallLog;
 
 public class FirewallManager {
     private List<FirewallRule> firewallRules;
-    private List<FirewallLog> trafficLogs;
+    private final TrafficLogBuffer trafficLog; // Most recent validations; older entries are overwritten
+    private volatile FirewallEngine engine; // Compiled rule matcher, dropped whenever a rule is added
+    private final VerdictCache verdictCache;
+
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+    public static final int DEFAULT_LOG_CAPACITY = 1 << 16;
 
     public FirewallManager() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public FirewallManager(int cacheSize) {
         this.firewallRules = new ArrayList<>();
-        this.trafficLogs = new ArrayList<>();
+        this.trafficLog = new TrafficLogBuffer(DEFAULT_LOG_CAPACITY);
+        this.verdictCache = new VerdictCache(cacheSize);
+        Metrics.gauge("firewall.cache.hits", verdictCache::hitCount);
+        Metrics.gauge("firewall.cache.misses", verdictCache::missCount);
+        Metrics.gauge("firewall.cache.evictions", verdictCache::evictionCount);
+    }
+
+    // Headless API, usable without the Swing frame
+
+    public synchronized void addRule(FirewallRule rule) {
+        firewallRules.add(rule);
+        engine = null;
+        verdictCache.invalidate();
+    }
+
+    public synchronized List<FirewallRule> getRules() {
+        return new ArrayList<>(firewallRules);
+    }
+
+    // Compiled view of the current rules, rebuilt only after the rule list has changed
+    public FirewallEngine engine() {
+        FirewallEngine current = engine;
+        if (current == null) {
+            synchronized (this) {
+                current = engine;
+                if (current == null) {
+                    current = new FirewallEngine(firewallRules);
+                    engine = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Bulk validation against the current rules; flows are not added to the traffic log
+    public FlowBatchValidator batchValidator() {
+        return new FlowBatchValidator(engine());
+    }
+
+    // Hit, miss and eviction counters of the verdict cache
+    public VerdictCache verdictCache() {
+        return verdictCache;
+    }
+
+    // Decide on one packet using first-match semantics and record it in the traffic log.
+    // Repeated flows are answered from the verdict cache until the next rule change.
+    public String validateTraffic(String source, String destination, int port, String protocol) {
+        long started = Metrics.ENABLED ? System.nanoTime() : 0;
+        int generation = verdictCache.generation(); // Read before the engine so a concurrent addRule wins
+        Boolean allowed = verdictCache.get(source, destination, port, protocol);
+        if (allowed == null) {
+            FirewallEngine current = engine();
+            int rule = current.match(source, destination, port, protocol);
+            allowed = current.allows(rule);
+            verdictCache.put(source, destination, port, protocol, allowed, generation);
+            if (Metrics.ENABLED) {
+                // Rules a first-match scan would have evaluated to reach this verdict
+                Metrics.FIREWALL_RULES_EVALUATED.record(rule < 0 ? current.ruleCount() : rule + 1);
+            }
+        }
+        String status = allowed ? FirewallEngine.ALLOWED : FirewallEngine.BLOCKED;
+        trafficLog.append(source, destination, port, protocol, allowed);
+        if (Metrics.ENABLED) {
+            (allowed ? Metrics.FIREWALL_ALLOWED : Metrics.FIREWALL_BLOCKED).increment();
+            Metrics.FIREWALL_LATENCY.record(System.nanoTime() - started);
+        }
+        return status;
+    }
+
+    public TrafficLogBuffer trafficLog() {
+        return trafficLog;
+    }
+
+    // Persist validations in the background to rotating files under the given directory
+    public void startLogPersistence(Path directory) throws IOException {
+        trafficLog.startPersistence(directory, "FirewallLogs", 16L << 20, 8, 200);
     }
 
     public void createAndShowGUI() {
@@ -35,11 +122,11 @@ public class FirewallManager {
         JComboBox<String> actionCombo = new JComboBox<>(new String[]{"ALLOW", "BLOCK"});
         JButton addRuleButton = new JButton("Add Rule");
 
-        rulePanel.add(new JLabel("Source IP:"));
+        rulePanel.add(new JLabel("Source IP / CIDR:"));
         rulePanel.add(sourceField);
-        rulePanel.add(new JLabel("Destination IP:"));
+        rulePanel.add(new JLabel("Destination IP / CIDR:"));
         rulePanel.add(destinationField);
-        rulePanel.add(new JLabel("Port:"));
+        rulePanel.add(new JLabel("Port or Range:"));
         rulePanel.add(portField);
         rulePanel.add(new JLabel("Protocol:"));
         rulePanel.add(protocolField);
@@ -77,10 +164,12 @@ public class FirewallManager {
         validationPanel.add(validateButton);
         validationPanel.add(validationResultLabel);
 
-        // Log Table
-        String[] logColumns = {"Timestamp", "Source", "Destination", "Port", "Protocol", "Status"};
-        DefaultTableModel logTableModel = new DefaultTableModel(logColumns, 0);
+        // Log Table, read straight from the traffic log buffer; the timer picks up validations
+        // made elsewhere (batch input, query server) with one table event per tick
+        TrafficLogTableModel logTableModel = new TrafficLogTableModel(trafficLog);
         JTable logTable = new JTable(logTableModel);
+        Timer logRefresh = new Timer(500, e -> logTableModel.refresh());
+        logRefresh.start();
         JScrollPane logScrollPane = new JScrollPane(logTable);
         logScrollPane.setBorder(BorderFactory.createTitledBorder("Traffic Logs"));
 
@@ -100,12 +189,17 @@ public class FirewallManager {
             try {
                 String source = sourceField.getText();
                 String destination = destinationField.getText();
-                int port = Integer.parseInt(portField.getText());
+                // Ports may be a single number or an inclusive range such as 8000-8080
+                String ports = portField.getText().trim();
+                int dash = ports.indexOf('-');
+                int port = Integer.parseInt((dash < 0 ? ports : ports.substring(0, dash)).trim());
+                int portEnd = dash < 0 ? port : Integer.parseInt(ports.substring(dash + 1).trim());
                 String protocol = protocolField.getText();
                 String action = (String) actionCombo.getSelectedItem();
 
-                firewallRules.add(new FirewallRule(source, destination, port, protocol, action));
-                ruleTableModel.addRow(new Object[]{source, destination, port, protocol, action});
+                FirewallRule rule = new FirewallRule(source, destination, port, portEnd, protocol, action);
+                addRule(rule);
+                ruleTableModel.addRow(new Object[]{source, destination, rule.portRange(), protocol, action});
                 JOptionPane.showMessageDialog(frame, "Rule added successfully!");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
@@ -119,17 +213,8 @@ public class FirewallManager {
                 int port = Integer.parseInt(validatePortField.getText());
                 String protocol = validateProtocolField.getText();
 
-                String status = "Allowed";
-                for (FirewallRule rule : firewallRules) {
-                    if (rule.source.equals(source) && rule.destination.equals(destination)
-                            && rule.port == port && rule.protocol.equalsIgnoreCase(protocol)) {
-                        status = rule.action.equals("BLOCK") ? "Blocked" : "Allowed";
-                        break;
-                    }
-                }
-
-                trafficLogs.add(new FirewallLog(source, destination, port, protocol, status));
-                logTableModel.addRow(new Object[]{java.time.LocalDateTime.now(), source, destination, port, protocol, status});
+                String status = validateTraffic(source, destination, port, protocol);
+                logTableModel.refresh();
                 validationResultLabel.setText("Result: " + status);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
@@ -137,16 +222,27 @@ public class FirewallManager {
         });
 
         exportLogsButton.addActionListener(e -> {
-            try (FileWriter writer = new FileWriter("FirewallLogs.txt")) {
-                for (FirewallLog log : trafficLogs) {
-                    writer.write(log.toString() + "\n");
-                }
+            try {
+                trafficLog.exportBinary(Paths.get("FirewallLogs.fwl"));
                 JOptionPane.showMessageDialog(frame, "Logs exported successfully!");
             } catch (IOException ex) {
                 JOptionPane.showMessageDialog(frame, "Error exporting logs: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
 
+        try {
+            startLogPersistence(Paths.get("logs"));
+        } catch (IOException ex) {
+            System.out.println("Traffic log persistence disabled: " + ex.getMessage());
+        }
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                logRefresh.stop();
+                trafficLog.close();
+            }
+        });
+
         frame.setVisible(true);
     }
 }
@@ -1,23 +1,50 @@
 package networktopology;
 
 public class FirewallRule {
-    public String source;
-    public String destination;
-    public int port;
-    public String protocol;
+    public String source;      // Exact address or device name, CIDR prefix (10.0.0.0/8, 2001:db8::/32) or "*"
+    public String destination; // Same forms as source
+    public int port;           // First port of the range
+    public int portEnd;        // Last port of the range (inclusive); equals port for single-port rules
+    public String protocol;    // Matched case-insensitively; "*" matches any protocol
     public String action;
 
     public FirewallRule(String source, String destination, int port, String protocol, String action) {
+        this(source, destination, port, port, protocol, action);
+    }
+
+    // Rejects ports outside 0..65535, reversed ranges and malformed CIDR prefixes, which would
+    // otherwise never match or silently fall back to a device-name match
+    public FirewallRule(String source, String destination, int port, int portEnd, String protocol, String action) {
+        if (port < 0 || port > 65535 || portEnd < 0 || portEnd > 65535) {
+            throw new IllegalArgumentException("Port out of range 0-65535: " + port + (port == portEnd ? "" : "-" + portEnd));
+        }
+        if (portEnd < port) {
+            throw new IllegalArgumentException("Port range is reversed: " + port + "-" + portEnd);
+        }
+        checkPrefix(source);
+        checkPrefix(destination);
         this.source = source;
         this.destination = destination;
         this.port = port;
+        this.portEnd = portEnd;
         this.protocol = protocol;
         this.action = action;
     }
 
+    private static void checkPrefix(String spec) {
+        if (spec != null && spec.indexOf('/') >= 0
+                && IpAddress.parsePrefix(spec, new long[IpAddress.SCRATCH_SIZE]) == IpAddress.NOT_IP) {
+            throw new IllegalArgumentException("Invalid CIDR prefix: " + spec);
+        }
+    }
+
+    public String portRange() {
+        return port == portEnd ? String.valueOf(port) : port + "-" + portEnd;
+    }
+
     @Override
     public String toString() {
         return "Rule [Source: " + source + ", Destination: " + destination +
-               ", Port: " + port + ", Protocol: " + protocol + ", Action: " + action + "]";
+               ", Port: " + portRange() + ", Protocol: " + protocol + ", Action: " + action + "]";
     }
 }
@@ -0,0 +1,280 @@
+package networktopology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+// Headless bulk validation of captured flows against one immutable FirewallEngine.
+// Flows are held column-wise and evaluated in parallel slices; each flow produces one verdict
+// byte and bumps a per-slice counter, so the hot path allocates nothing per flow.
+public class FlowBatchValidator {
+    public static final byte VERDICT_BLOCKED = 0;
+    public static final byte VERDICT_ALLOWED = 1;
+    public static final byte VERDICT_INVALID = 2; // Malformed input line
+
+    static final int CHUNK_FLOWS = 1 << 16;
+    private static final int SLICE_FLOWS = 4096;
+    private static final int MAX_INTERNED = 1 << 20; // Reset the token table beyond this many distinct tokens
+
+    private final FirewallEngine engine;
+    private final ForkJoinPool pool;
+
+    public FlowBatchValidator(FirewallEngine engine) {
+        this(engine, ForkJoinPool.commonPool());
+    }
+
+    public FlowBatchValidator(FirewallEngine engine, ForkJoinPool pool) {
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    // Counts returned by a batch run
+    public static class BatchResult {
+        public final long flows;
+        public final long allowed;
+        public final long blocked;
+        public final long invalid;
+        public final long elapsedNanos;
+
+        BatchResult(long flows, long allowed, long blocked, long invalid, long elapsedNanos) {
+            this.flows = flows;
+            this.allowed = allowed;
+            this.blocked = blocked;
+            this.invalid = invalid;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double flowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : flows * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Batch [Flows: " + flows + ", Allowed: " + allowed + ", Blocked: " + blocked
+                    + ", Invalid: " + invalid + ", Flows/s: " + Math.round(flowsPerSecond()) + "]";
+        }
+    }
+
+    // Validate flows [0, count) of the given columns, writing one verdict byte per flow.
+    // A flow with a null source counts as invalid, as a malformed line does in validateFile.
+    public BatchResult validate(String[] sources, String[] destinations, int[] ports, String[] protocols,
+                                int count, byte[] verdicts) {
+        long start = System.nanoTime();
+        long allowed = evaluate(sources, destinations, ports, protocols, count, verdicts);
+        long invalid = 0;
+        for (int i = 0; i < count; i++) {
+            if (verdicts[i] == VERDICT_INVALID) invalid++;
+        }
+        return new BatchResult(count, allowed, count - allowed - invalid, invalid, System.nanoTime() - start);
+    }
+
+    // Stream "source,destination,port,protocol" lines from a file and write verdict bytes to out.
+    // Chunks are double-buffered: the next chunk is parsed while the previous one is evaluated.
+    public BatchResult validateFile(Path input, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long flows = 0;
+        long allowed = 0;
+        long invalid = 0;
+
+        Chunk[] chunks = {new Chunk(), new Chunk()};
+        ByteStringInterner interner = new ByteStringInterner(1 << 12);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            LineReader reader = new LineReader(channel);
+            CompletableFuture<Long> pending = null;
+            Chunk previous = null;
+            for (int turn = 0; ; turn++) {
+                Chunk chunk = chunks[turn & 1];
+                chunk.fill(reader, interner);
+                if (interner.size() > MAX_INTERNED) interner.clear();
+
+                if (pending != null) {
+                    allowed += pending.join();
+                    out.write(previous.verdicts, 0, previous.size);
+                }
+                if (chunk.size == 0) break;
+
+                flows += chunk.size;
+                invalid += chunk.invalid;
+                Chunk current = chunk;
+                pending = CompletableFuture.supplyAsync(() -> evaluate(current.sources, current.destinations,
+                        current.ports, current.protocols, current.size, current.verdicts), pool);
+                previous = chunk;
+            }
+        }
+        out.flush();
+        return new BatchResult(flows, allowed, flows - allowed - invalid, invalid, System.nanoTime() - start);
+    }
+
+    // Evaluates flows in parallel slices and returns how many were allowed.
+    // Flows with a null source were malformed and keep their VERDICT_INVALID byte.
+    private long evaluate(String[] sources, String[] destinations, int[] ports, String[] protocols,
+                          int count, byte[] verdicts) {
+        int slices = (count + SLICE_FLOWS - 1) / SLICE_FLOWS;
+        long[] allowedPerSlice = new long[slices];
+        Runnable work = () -> IntStream.range(0, slices).parallel().forEach(slice -> {
+            long allowed = 0;
+            int end = Math.min(count, (slice + 1) * SLICE_FLOWS);
+            for (int i = slice * SLICE_FLOWS; i < end; i++) {
+                if (sources[i] == null) {
+                    verdicts[i] = VERDICT_INVALID;
+                } else if (engine.isAllowed(sources[i], destinations[i], ports[i], protocols[i])) {
+                    verdicts[i] = VERDICT_ALLOWED;
+                    allowed++;
+                } else {
+                    verdicts[i] = VERDICT_BLOCKED;
+                }
+            }
+            allowedPerSlice[slice] = allowed;
+        });
+        // Parallel streams run in the pool of the calling worker, or in the common pool otherwise
+        if (ForkJoinTask.getPool() == pool || pool == ForkJoinPool.commonPool()) {
+            work.run();
+        } else {
+            pool.submit(work).join();
+        }
+        long total = 0;
+        for (long allowed : allowedPerSlice) total += allowed;
+        return total;
+    }
+
+    // Reusable column buffers for one chunk of parsed flows
+    private static class Chunk {
+        final String[] sources = new String[CHUNK_FLOWS];
+        final String[] destinations = new String[CHUNK_FLOWS];
+        final int[] ports = new int[CHUNK_FLOWS];
+        final String[] protocols = new String[CHUNK_FLOWS];
+        final byte[] verdicts = new byte[CHUNK_FLOWS];
+        int size;
+        int invalid;
+
+        void fill(LineReader reader, ByteStringInterner interner) throws IOException {
+            size = 0;
+            invalid = 0;
+            int[] fields = new int[8]; // Start/end offsets of the four fields
+            while (size < CHUNK_FLOWS && reader.next()) {
+                byte[] line = reader.buffer;
+                if (reader.lineStart == reader.lineEnd) continue; // Blank line
+                if (!split(line, reader.lineStart, reader.lineEnd, fields)) {
+                    markInvalid();
+                    continue;
+                }
+                int port = parsePort(line, fields[4], fields[5]);
+                if (port < 0) {
+                    markInvalid();
+                    continue;
+                }
+                sources[size] = interner.intern(line, fields[0], fields[1] - fields[0]);
+                destinations[size] = interner.intern(line, fields[2], fields[3] - fields[2]);
+                ports[size] = port;
+                protocols[size] = interner.intern(line, fields[6], fields[7] - fields[6]);
+                size++;
+            }
+        }
+
+        private void markInvalid() {
+            sources[size] = null;
+            size++;
+            invalid++;
+        }
+
+        // Splits a line into exactly four comma-separated fields, trimming spaces
+        private static boolean split(byte[] line, int from, int to, int[] fields) {
+            int field = 0;
+            int start = from;
+            for (int i = from; i <= to; i++) {
+                if (i == to || line[i] == ',') {
+                    if (field == 4) return false;
+                    int s = start;
+                    int e = i;
+                    while (s < e && line[s] == ' ') s++;
+                    while (e > s && line[e - 1] == ' ') e--;
+                    if (s == e) return false;
+                    fields[2 * field] = s;
+                    fields[2 * field + 1] = e;
+                    field++;
+                    start = i + 1;
+                }
+            }
+            return field == 4;
+        }
+
+        private static int parsePort(byte[] line, int from, int to) {
+            if (to - from > 5) return -1;
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) return -1;
+                value = value * 10 + digit;
+            }
+            return value <= 65535 ? value : -1;
+        }
+    }
+
+    // Splits a file channel into lines without creating a String per line
+    static class LineReader {
+        private final FileChannel channel;
+        byte[] buffer = new byte[1 << 20];
+        private int limit;
+        private int position;
+        private boolean eof;
+        int lineStart;
+        int lineEnd;
+
+        LineReader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // Advance to the next line; false at end of input
+        boolean next() throws IOException {
+            while (true) {
+                for (int i = position; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        setLine(position, i);
+                        position = i + 1;
+                        return true;
+                    }
+                }
+                if (eof) {
+                    if (position < limit) {
+                        setLine(position, limit);
+                        position = limit;
+                        return true;
+                    }
+                    return false;
+                }
+                refill();
+            }
+        }
+
+        private void setLine(int start, int end) {
+            if (end > start && buffer[end - 1] == '\r') end--;
+            lineStart = start;
+            lineEnd = end;
+        }
+
+        private void refill() throws IOException {
+            int remaining = limit - position;
+            if (position == 0 && remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2); // Line longer than the buffer
+            } else {
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+            }
+            position = 0;
+            limit = remaining;
+            int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package networktopology;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Fruchterman-Reingold style force-directed layout of a CompiledGraph, computed off the EDT.
+// Every iteration builds a Barnes-Hut quadtree over the current positions, so repulsion costs
+// O(n log n) instead of O(n^2): a cell far enough away (size / distance < THETA) acts as one
+// body at its centre of mass. Links pull their ends together, regardless of direction, and a
+// weak gravity keeps disconnected parts near the origin.
+// Forces are accumulated in parallel over node ranges; each node only writes its own
+// displacement, and attraction reads both the forward and reverse CSR, so no locking is needed.
+// Displacements are capped by a temperature that cools every iteration.
+//
+// start() runs iterations on a daemon thread and hands a copy of the positions to the
+// listener every few iterations, so a view can show the layout while it settles.
+// warmStart() carries positions over from the layout of an earlier snapshot when the
+// topology changes.
+public class ForceDirectedLayout {
+    static final double THETA = 0.8;           // Barnes-Hut opening criterion
+    static final int LEAF_SIZE = 8;            // Quadtree cells with at most this many nodes are not split
+    static final int MAX_ITERATIONS = 400;
+    static final int PUBLISH_INTERVAL = 5;     // Iterations between listener updates
+    private static final double GRAVITY = 0.05;
+    private static final double COOLING = 0.97;
+
+    // Receives intermediate and final positions; called on the layout thread
+    public interface Listener {
+        void positionsUpdated(CompiledGraph graph, float[] x, float[] y, boolean finished);
+    }
+
+    private final CompiledGraph graph;
+    private final float[] x;
+    private final float[] y;
+    private final float[] dx;
+    private final float[] dy;
+    private final ForkJoinPool pool;
+    private final int chunks;
+    private double temperature;
+    private int iterations;
+    private volatile boolean stopped;
+    private Thread worker;
+
+    // Quadtree of the current iteration; cell children are stored in consecutive slots
+    private int[] order;        // Node ids grouped so every cell covers one range
+    private int cellCount;
+    private int[] cellFirst;    // Range of order covered by the cell
+    private int[] cellLast;
+    private int[] cellChild;    // First of the cell's children, or -1 for a leaf
+    private int[] cellChildren;
+    private double[] cellMass;
+    private double[] cellX;     // Centre of mass
+    private double[] cellY;
+    private double[] cellSize;  // Side length of the cell's square
+
+    // Cold start from random positions in a square that fits the graph
+    public ForceDirectedLayout(CompiledGraph graph) {
+        this(graph, null, null, false);
+    }
+
+    // Continue from given positions (copied), e.g. the result of warmStart();
+    // warm layouts start cooler so the existing arrangement is refined rather than scrambled
+    public ForceDirectedLayout(CompiledGraph graph, float[] initialX, float[] initialY, boolean warm) {
+        int nodeCount = graph.nodeCount();
+        this.graph = graph;
+        this.pool = ForkJoinPool.commonPool();
+        this.chunks = Math.max(1, Math.min(nodeCount / 1024, pool.getParallelism() * 4));
+        this.dx = new float[nodeCount];
+        this.dy = new float[nodeCount];
+        double side = Math.sqrt(Math.max(1, nodeCount)); // Ideal link length is 1, so the graph spans about sqrt(n)
+        if (initialX != null) {
+            this.x = Arrays.copyOf(initialX, nodeCount);
+            this.y = Arrays.copyOf(initialY, nodeCount);
+        } else {
+            Random random = new Random(nodeCount);
+            this.x = new float[nodeCount];
+            this.y = new float[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                x[node] = (float) ((random.nextDouble() - 0.5) * side);
+                y[node] = (float) ((random.nextDouble() - 0.5) * side);
+            }
+        }
+        this.temperature = side * (warm ? 0.02 : 0.1);
+    }
+
+    // Positions for a new snapshot from those of an older one: devices present in both keep
+    // their place, new devices start next to an already placed neighbour (or at random)
+    public static float[][] warmStart(CompiledGraph previous, float[] previousX, float[] previousY, CompiledGraph current) {
+        int nodeCount = current.nodeCount();
+        float[] x = new float[nodeCount];
+        float[] y = new float[nodeCount];
+        boolean[] placed = new boolean[nodeCount];
+        int[] pending = new int[nodeCount];
+        int pendingCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            int old = previous == null ? -1 : previous.idOf(current.nameOf(node));
+            if (old >= 0 && old < previousX.length) {
+                x[node] = previousX[old];
+                y[node] = previousY[old];
+                placed[node] = true;
+            } else {
+                pending[pendingCount++] = node;
+            }
+        }
+
+        Random random = new Random(nodeCount);
+        double side = Math.sqrt(Math.max(1, nodeCount));
+        for (int i = 0; i < pendingCount; i++) {
+            int node = pending[i];
+            int neighbour = placedNeighbour(current, node, placed);
+            if (neighbour >= 0) {
+                x[node] = x[neighbour] + (float) (random.nextDouble() - 0.5);
+                y[node] = y[neighbour] + (float) (random.nextDouble() - 0.5);
+            } else {
+                x[node] = (float) ((random.nextDouble() - 0.5) * side);
+                y[node] = (float) ((random.nextDouble() - 0.5) * side);
+            }
+            placed[node] = true;
+        }
+        return new float[][]{x, y};
+    }
+
+    public CompiledGraph graph() {
+        return graph;
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    public boolean isFinished() {
+        return iterations >= MAX_ITERATIONS || temperature < 1e-3;
+    }
+
+    // Copies of the current positions
+    public synchronized float[][] positions() {
+        return new float[][]{x.clone(), y.clone()};
+    }
+
+    // Run iterations on a background thread until finished or stopped
+    public synchronized void start(Listener listener) {
+        if (worker != null) throw new IllegalStateException("Layout already started");
+        worker = new Thread(() -> {
+            while (!stopped && !isFinished()) {
+                step();
+                if (iterations % PUBLISH_INTERVAL == 0 && !isFinished()) publish(listener, false);
+            }
+            publish(listener, true);
+        }, "force-layout");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Ask the background thread to stop after the current iteration
+    public void stop() {
+        stopped = true;
+    }
+
+    // One iteration: forces from the quadtree and the links, then capped moves
+    public void step() {
+        int nodeCount = graph.nodeCount();
+        if (nodeCount == 0) {
+            iterations = MAX_ITERATIONS;
+            return;
+        }
+        buildQuadtree();
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = (int) ((long) chunk * nodeCount / chunks);
+            int to = (int) ((long) (chunk + 1) * nodeCount / chunks);
+            for (int node = from; node < to; node++) {
+                accumulate(node);
+            }
+        })).join();
+
+        synchronized (this) {
+            double limit = temperature;
+            for (int node = 0; node < nodeCount; node++) {
+                double length = Math.sqrt(dx[node] * dx[node] + dy[node] * dy[node]);
+                if (length > limit) {
+                    double shrink = limit / length;
+                    dx[node] *= shrink;
+                    dy[node] *= shrink;
+                }
+                x[node] += dx[node];
+                y[node] += dy[node];
+            }
+        }
+        temperature *= COOLING;
+        iterations++;
+    }
+
+    // Nothing is reported after stop(), so a replaced layout cannot overwrite its successor's view
+    private void publish(Listener listener, boolean finished) {
+        if (stopped) return;
+        float[][] copy = positions();
+        listener.positionsUpdated(graph, copy[0], copy[1], finished);
+    }
+
+    // Net force on one node: Barnes-Hut repulsion, link attraction and gravity
+    private void accumulate(int node) {
+        double px = x[node];
+        double py = y[node];
+        double fx = -GRAVITY * px;
+        double fy = -GRAVITY * py;
+
+        // Repulsion k^2 / d with k = 1, so the force vector is (delta / d^2)
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            double ddx = px - cellX[cell];
+            double ddy = py - cellY[cell];
+            double squared = ddx * ddx + ddy * ddy;
+            if (cellChild[cell] >= 0 && cellSize[cell] * cellSize[cell] < THETA * THETA * squared) {
+                fx += cellMass[cell] * ddx / squared;
+                fy += cellMass[cell] * ddy / squared;
+            } else if (cellChild[cell] < 0) {
+                for (int i = cellFirst[cell]; i < cellLast[cell]; i++) {
+                    int other = order[i];
+                    if (other == node) continue;
+                    double ox = px - x[other];
+                    double oy = py - y[other];
+                    double d2 = ox * ox + oy * oy;
+                    if (d2 < 1e-6) {
+                        // Coincident nodes: push apart in a direction fixed by their ids
+                        ox = ((node * 31 + other) % 7 - 3) * 1e-2;
+                        oy = ((node * 17 + other) % 5 - 2) * 1e-2 + 1e-3;
+                        d2 = ox * ox + oy * oy;
+                    }
+                    fx += ox / d2;
+                    fy += oy / d2;
+                }
+            } else {
+                if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                for (int child = cellChild[cell]; child < cellChild[cell] + cellChildren[cell]; child++) {
+                    stack[top++] = child;
+                }
+            }
+        }
+
+        // Attraction d^2 / k along links in both directions
+        for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+            int other = graph.target(edge);
+            double ox = x[other] - px;
+            double oy = y[other] - py;
+            double distance = Math.sqrt(ox * ox + oy * oy);
+            fx += ox * distance;
+            fy += oy * distance;
+        }
+        for (int edge = graph.firstReverseEdge(node); edge < graph.lastReverseEdge(node); edge++) {
+            int other = graph.reverseSource(edge);
+            double ox = x[other] - px;
+            double oy = y[other] - py;
+            double distance = Math.sqrt(ox * ox + oy * oy);
+            fx += ox * distance;
+            fy += oy * distance;
+        }
+        dx[node] = (float) fx;
+        dy[node] = (float) fy;
+    }
+
+    // Top-down build: each cell's node range is partitioned in place into its quadrants
+    private void buildQuadtree() {
+        int nodeCount = graph.nodeCount();
+        if (order == null) {
+            order = new int[nodeCount];
+            int capacity = Math.max(16, nodeCount / 2);
+            cellFirst = new int[capacity];
+            cellLast = new int[capacity];
+            cellChild = new int[capacity];
+            cellChildren = new int[capacity];
+            cellMass = new double[capacity];
+            cellX = new double[capacity];
+            cellY = new double[capacity];
+            cellSize = new double[capacity];
+        }
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int node = 0; node < nodeCount; node++) {
+            order[node] = node;
+            minX = Math.min(minX, x[node]);
+            minY = Math.min(minY, y[node]);
+            maxX = Math.max(maxX, x[node]);
+            maxY = Math.max(maxY, y[node]);
+        }
+        double side = Math.max(Math.max(maxX - minX, maxY - minY), 1e-3);
+        cellCount = 1;
+        build(0, 0, nodeCount, minX, minY, side, 0);
+    }
+
+    private void build(int cell, int first, int last, double left, double bottom, double side, int depth) {
+        cellFirst[cell] = first;
+        cellLast[cell] = last;
+        cellSize[cell] = side;
+        double sumX = 0;
+        double sumY = 0;
+        for (int i = first; i < last; i++) {
+            sumX += x[order[i]];
+            sumY += y[order[i]];
+        }
+        cellMass[cell] = last - first;
+        cellX[cell] = sumX / (last - first);
+        cellY[cell] = sumY / (last - first);
+        if (last - first <= LEAF_SIZE || depth == 40) {
+            cellChild[cell] = -1;
+            return;
+        }
+
+        // Split the range by y, then each half by x: quadrant ranges [first, a), [a, b), [b, c), [c, last)
+        double midX = left + side / 2;
+        double midY = bottom + side / 2;
+        int b = partition(first, last, y, midY);
+        int a = partition(first, b, x, midX);
+        int c = partition(b, last, x, midX);
+        int[] bounds = {first, a, b, c, last};
+
+        int children = 0;
+        for (int q = 0; q < 4; q++) {
+            if (bounds[q + 1] > bounds[q]) children++;
+        }
+        ensureCells(cellCount + children);
+        int child = cellCount;
+        cellChild[cell] = child;
+        cellChildren[cell] = children;
+        cellCount += children;
+        double half = side / 2;
+        for (int q = 0; q < 4; q++) {
+            if (bounds[q + 1] == bounds[q]) continue;
+            build(child++, bounds[q], bounds[q + 1], (q & 1) == 0 ? left : midX, q < 2 ? bottom : midY, half, depth + 1);
+        }
+    }
+
+    // Moves nodes of order[first, last) with coordinate below pivot to the front; returns the split
+    private int partition(int first, int last, float[] coordinate, double pivot) {
+        int i = first;
+        int j = last - 1;
+        while (i <= j) {
+            if (coordinate[order[i]] < pivot) {
+                i++;
+            } else {
+                int swap = order[i];
+                order[i] = order[j];
+                order[j--] = swap;
+            }
+        }
+        return i;
+    }
+
+    private void ensureCells(int needed) {
+        if (needed <= cellFirst.length) return;
+        int capacity = Math.max(needed, cellFirst.length * 2);
+        cellFirst = Arrays.copyOf(cellFirst, capacity);
+        cellLast = Arrays.copyOf(cellLast, capacity);
+        cellChild = Arrays.copyOf(cellChild, capacity);
+        cellChildren = Arrays.copyOf(cellChildren, capacity);
+        cellMass = Arrays.copyOf(cellMass, capacity);
+        cellX = Arrays.copyOf(cellX, capacity);
+        cellY = Arrays.copyOf(cellY, capacity);
+        cellSize = Arrays.copyOf(cellSize, capacity);
+    }
+
+    private static int placedNeighbour(CompiledGraph graph, int node, boolean[] placed) {
+        for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+            if (placed[graph.target(edge)]) return graph.target(edge);
+        }
+        for (int edge = graph.firstReverseEdge(node); edge < graph.lastReverseEdge(node); edge++) {
+            if (placed[graph.reverseSource(edge)]) return graph.reverseSource(edge);
+        }
+        return -1;
+    }
+}
@@ -1,23 +1,194 @@
 package networktopology;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Graph {
     protected Map<String, List<Edge>> adjacencyList = new HashMap<>();
+    protected volatile CompiledGraph snapshot; // Cached compiled view, dropped whenever the topology changes
+    private final AtomicLong modifications = new AtomicLong(); // Topology changes so far
+    // Last compiled snapshot and the writes logged since; null pending means compile from scratch
+    private CompiledGraph base;
+    private List<TopologyChange> pending;
+    protected volatile Map<String, List<Edge>> reverseAdjacencyList; // Incoming edges, built on first use
+    // Topology bulk-loaded into the empty graph; the adjacency lists are filled from it on first need
+    protected volatile CompiledGraph backing;
+    protected List<GraphChangeListener> listeners = new ArrayList<>();
+    private BottleneckIndex bottleneckIndex;
+
+    static final int MIN_LOGGED_CHANGES = 1024; // The change log may always grow this long
 
     // Feature 1: Build Network Topology
 
     // Method to add an edge to the graph
     public void addEdge(String source, String destination, int weight) {
+        materialize();
         // Ensure both source and destination nodes exist in the adjacency list
         adjacencyList.putIfAbsent(source, new ArrayList<>());
         adjacencyList.putIfAbsent(destination, new ArrayList<>());
         // Add the edge to the source node's list
         adjacencyList.get(source).add(new Edge(destination, weight));
+        if (reverseAdjacencyList != null) {
+            reverseAdjacencyList.computeIfAbsent(source, k -> new ArrayList<>());
+            reverseAdjacencyList.computeIfAbsent(destination, k -> new ArrayList<>()).add(new Edge(source, weight));
+        }
+        modified(new TopologyChange(source, destination, TopologyChange.ADDED, weight));
+        for (GraphChangeListener listener : listeners) {
+            listener.edgeAdded(source, destination, weight);
+        }
+    }
+
+    // Method to change the weight of every edge from source to destination (e.g. new latency readings).
+    // Returns false if no such edge exists.
+    public boolean updateEdgeWeight(String source, String destination, int weight) {
+        materialize();
+        int oldWeight = Integer.MAX_VALUE;
+        for (Edge edge : adjacencyList.getOrDefault(source, Collections.emptyList())) {
+            if (edge.destination.equals(destination)) {
+                oldWeight = Math.min(oldWeight, edge.weight);
+                edge.weight = weight;
+            }
+        }
+        if (oldWeight == Integer.MAX_VALUE) return false;
+
+        if (reverseAdjacencyList != null) {
+            for (Edge edge : reverseAdjacencyList.get(destination)) {
+                if (edge.destination.equals(source)) edge.weight = weight;
+            }
+        }
+        modified(new TopologyChange(source, destination, oldWeight, weight));
+        for (GraphChangeListener listener : listeners) {
+            listener.edgeWeightChanged(source, destination, oldWeight, weight);
+        }
+        return true;
+    }
+
+    // Bulk-load every edge of a compiled snapshot, e.g. one read back by GraphSnapshotFile.
+    // Loading into an empty graph with no listeners just adopts the snapshot: no Edge objects are
+    // created until the first write or adjacency-list read (see materialize).
+    public void addAll(CompiledGraph compiled) {
+        if (adjacencyList.isEmpty() && backing == null && listeners.isEmpty() && compiled.nodeCount() > 0) {
+            backing = compiled;
+            modified();
+            adoptSnapshot(compiled);
+            return;
+        }
+        materialize();
+        boolean wasEmpty = adjacencyList.isEmpty();
+        appendEdges(compiled, true);
+        modified(new TopologyChange(compiled));
+        if (wasEmpty) adoptSnapshot(compiled);
+    }
+
+    // Fill the adjacency lists from a bulk-loaded snapshot the first time they are needed
+    protected void materialize() {
+        CompiledGraph loaded = backing;
+        if (loaded == null) return;
+        appendEdges(loaded, false);
+        backing = null;
+    }
+
+    private void appendEdges(CompiledGraph compiled, boolean notify) {
+        Map<String, List<Edge>> reverse = reverseAdjacencyList;
+        for (int node = 0; node < compiled.nodeCount(); node++) {
+            String source = compiled.nameOf(node);
+            int degree = compiled.lastEdge(node) - compiled.firstEdge(node);
+            List<Edge> edges = adjacencyList.computeIfAbsent(source, k -> new ArrayList<>(degree));
+            if (reverse != null) reverse.computeIfAbsent(source, k -> new ArrayList<>());
+            for (int edge = compiled.firstEdge(node); edge < compiled.lastEdge(node); edge++) {
+                String destination = compiled.nameOf(compiled.target(edge));
+                int weight = compiled.weight(edge);
+                edges.add(new Edge(destination, weight));
+                if (reverse != null) {
+                    reverse.computeIfAbsent(destination, k -> new ArrayList<>()).add(new Edge(source, weight));
+                }
+                if (!notify) continue;
+                for (GraphChangeListener listener : listeners) {
+                    listener.edgeAdded(source, destination, weight);
+                }
+            }
+        }
+    }
+
+    // Save the current topology as a binary snapshot file
+    public void saveSnapshot(Path file) throws IOException {
+        GraphSnapshotFile.write(snapshot(), file);
+    }
+
+    // Add every edge stored in a binary snapshot file
+    public void loadSnapshot(Path file) throws IOException {
+        addAll(GraphSnapshotFile.read(file));
+    }
+
+    // Number of topology changes so far; a cheap way to tell whether the graph changed since an earlier call
+    public long modificationCount() {
+        return modifications.get();
+    }
+
+    // Called by every write after the change is in place: drops the compiled snapshot, and the
+    // next snapshot is compiled from scratch
+    protected void modified() {
+        modified(null);
+    }
+
+    // Same for a write described by change, which lets the next snapshot be patched from the last
+    // one. The log is dropped instead once it outgrows the snapshot, when compiling is as cheap.
+    protected void modified(TopologyChange change) {
+        snapshot = null;
+        modifications.incrementAndGet();
+        if (pending == null) return;
+        if (change == null || pending.size() >= Math.max(MIN_LOGGED_CHANGES, base.edgeCount())) {
+            base = null;
+            pending = null;
+        } else {
+            pending.add(change);
+        }
+    }
+
+    // Use an already compiled view of exactly the current topology as the snapshot
+    protected void adoptSnapshot(CompiledGraph compiled) {
+        base = compiled;
+        pending = new ArrayList<>();
+        snapshot = compiled;
+    }
+
+    public void addChangeListener(GraphChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(GraphChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Outgoing edges of a node (empty if the node is unknown)
+    List<Edge> outgoingEdges(String node) {
+        materialize();
+        return adjacencyList.getOrDefault(node, Collections.emptyList());
+    }
+
+    // Incoming edges of a node; here Edge.destination holds the source of the link
+    List<Edge> incomingEdges(String node) {
+        materialize();
+        if (reverseAdjacencyList == null) {
+            Map<String, List<Edge>> reverse = new HashMap<>();
+            for (String from : adjacencyList.keySet()) {
+                reverse.computeIfAbsent(from, k -> new ArrayList<>());
+                for (Edge edge : adjacencyList.get(from)) {
+                    reverse.computeIfAbsent(edge.destination, k -> new ArrayList<>()).add(new Edge(from, edge.weight));
+                }
+            }
+            reverseAdjacencyList = reverse;
+        }
+        return reverseAdjacencyList.getOrDefault(node, Collections.emptyList());
     }
 
     // Method to print the current topology
     public void printTopology() {
+        materialize();
         System.out.println("Network Topology:");
         for (String node : adjacencyList.keySet()) {
             System.out.print(node + " -> ");
@@ -31,81 +202,106 @@ public class Graph {
     // Feature 2: Find Shortest Path (Dijkstra's Algorithm)
 
     public List<String> findShortestPath(String start, String end) {
-        // Validation for start and end nodes
-        if (!adjacencyList.containsKey(start)) {
-            System.out.println("Error: Start node \"" + start + "\" does not exist in the graph.");
-            return Collections.emptyList();
-        }
-        if (!adjacencyList.containsKey(end)) {
-            System.out.println("Error: End node \"" + end + "\" does not exist in the graph.");
-            return Collections.emptyList();
-        }
-
-        // Priority Queue for nodes to visit, sorted by distance
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(node -> node.distance));
-        Map<String, Integer> distances = new HashMap<>();
-        Map<String, String> previous = new HashMap<>();
-        List<String> path = new ArrayList<>();
-
-        // Initialize distances to infinity and set up the priority queue
-        for (String node : adjacencyList.keySet()) {
-            distances.put(node, Integer.MAX_VALUE);
-        }
-        distances.put(start, 0); // Distance to start node is 0
-        queue.add(new Node(start, 0));
+        return findShortestPath(start, end, SearchMode.DIJKSTRA);
+    }
 
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
+    // Same search without console output; null if either device is unknown or unreachable
+    public Route route(String start, String end) {
+        return route(start, end, SearchMode.DIJKSTRA);
+    }
 
-            // Stop if we reached the destination
-            if (current.name.equals(end)) break;
+    // Point-to-point search in the given mode. A_STAR uses the snapshot's ALT landmarks, selecting
+    // them on first use; BIDIRECTIONAL only uses landmarks that an earlier A_STAR query already built.
+    // After a write the snapshot is patched from the previous one rather than compiled again.
+    public List<String> findShortestPath(String start, String end, SearchMode mode) {
+        CompiledGraph compiled = snapshot();
+        return compiled.findShortestPath(start, end, mode, heuristic(compiled, mode));
+    }
 
-            // Process neighbors
-            for (Edge edge : adjacencyList.getOrDefault(current.name, new ArrayList<>())) {
-                int newDist = distances.get(current.name) + edge.weight;
-                if (newDist < distances.get(edge.destination)) {
-                    distances.put(edge.destination, newDist);
-                    previous.put(edge.destination, current.name);
-                    queue.add(new Node(edge.destination, newDist));
-                }
-            }
-        }
+    public Route route(String start, String end, SearchMode mode) {
+        CompiledGraph compiled = snapshot();
+        return compiled.route(start, end, mode, heuristic(compiled, mode));
+    }
 
-        // Build the path by tracing back from the end node
-        for (String at = end; at != null; at = previous.get(at)) {
-            path.add(at);
+    private static DistanceHeuristic heuristic(CompiledGraph compiled, SearchMode mode) {
+        switch (mode) {
+            case A_STAR:
+                return compiled.landmarks();
+            case BIDIRECTIONAL:
+                return compiled.landmarksIfSelected();
+            default:
+                return null;
         }
-        Collections.reverse(path); // Reverse the path to start->end order
+    }
 
-        // Print the result
-        if (distances.get(end) == Integer.MAX_VALUE) {
-            System.out.println("No path found between " + start + " and " + end);
-        } else {
-            System.out.println("Shortest Path: " + path);
-            System.out.println("Total Weight: " + distances.get(end));
-        }
+    // Batch variant: full shortest-path trees for many sources, computed in parallel
+    public Map<String, ShortestPathTree> findShortestPathTrees(Collection<String> sources) {
+        return new ShortestPathBatch(snapshot()).solve(sources);
+    }
 
-        return path;
+    // Long-lived shortest-path tree from root, repaired incrementally as edges are added or reweighted
+    // The tree is seeded from the current snapshot and registered with no change in between
+    // (ConcurrentGraph does both under its exclusive lock)
+    public DynamicShortestPathTree subscribeShortestPaths(String root) {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(this, root, snapshot());
+        addChangeListener(tree);
+        return tree;
     }
 
     // Feature 3: Detect Bottleneck
 
     public void detectBottlenecks(int threshold) {
         System.out.println("Bottleneck Connections:");
-        boolean found = false;
-        for (String node : adjacencyList.keySet()) {
-            for (Edge edge : adjacencyList.get(node)) {
-                if (edge.weight > threshold) {
-                    System.out.println(node + " -> " + edge.destination + " (Weight: " + edge.weight + ")");
-                    found = true;
-                }
-            }
+        List<Link> found = findBottlenecks(threshold).collect(Collectors.toList());
+        for (Link link : found) {
+            System.out.println(link);
         }
-        if (!found) {
+        if (found.isEmpty()) {
             System.out.println("No bottleneck connections found exceeding the threshold of " + threshold + ".");
         }
     }
 
+    // Links heavier than threshold, heaviest first, answered from the weight-sorted index
+    public Stream<Link> findBottlenecks(int threshold) {
+        return bottleneckIndex().above(threshold);
+    }
+
+    // Weight-sorted index of all links, created on first use and kept current by addEdge
+    public synchronized BottleneckIndex bottleneckIndex() {
+        if (bottleneckIndex == null) {
+            bottleneckIndex = new BottleneckIndex(snapshot());
+            addChangeListener(bottleneckIndex);
+        }
+        return bottleneckIndex;
+    }
+
+    // Feature 10: Resilience Analysis
+
+    // Devices whose failure splits the network, treating links as undirected
+    public List<String> findArticulationPoints() {
+        return snapshot().connectivity().articulationPoints();
+    }
+
+    // Links whose failure splits the network, treating links as undirected
+    public List<Link> findBridges() {
+        return snapshot().connectivity().bridges();
+    }
+
+    // Groups of devices that can all reach each other along directed links, largest first
+    public List<List<String>> findStronglyConnectedComponents() {
+        CompiledGraph compiled = snapshot();
+        ConnectivityAnalysis.Components components = compiled.connectivity().stronglyConnected();
+        List<List<String>> groups = new ArrayList<>(components.count);
+        for (int c = 0; c < components.count; c++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int node = 0; node < components.componentOf.length; node++) {
+            groups.get(components.componentOf[node]).add(compiled.nameOf(node));
+        }
+        groups.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        return groups;
+    }
+
     // Helper Classes
 
     // Inner class to represent an edge in the graph
@@ -130,35 +326,30 @@ public class Graph {
         }
     }
      public Map<String, List<Edge>> getGraphData() {
+       materialize();
        return adjacencyList;
-   }  
-     
-    public List<String> discoverDevices(String startNode, int depthLimit) {
-    List<String> discoveredDevices = new ArrayList<>();
-    Set<String> visited = new HashSet<>();
-    Queue<String> queue = new LinkedList<>();
-    queue.add(startNode);
-    visited.add(startNode);
-
-    int currentDepth = 0;
-
-    while (!queue.isEmpty() && currentDepth <= depthLimit) {
-        int size = queue.size(); // Nodes at the current depth
-        for (int i = 0; i < size; i++) {
-            String current = queue.poll();
-            discoveredDevices.add(current);
-
-            // Explore neighbors
-            for (Edge edge : adjacencyList.getOrDefault(current, new ArrayList<>())) {
-                if (!visited.contains(edge.destination)) {
-                    visited.add(edge.destination);
-                    queue.add(edge.destination);
-                }
-            }
+   }
+
+    // Freeze the current topology into an immutable CSR snapshot for read-heavy queries
+    public CompiledGraph compile() {
+        CompiledGraph loaded = backing;
+        if (loaded != null) return loaded; // Unchanged since the bulk load
+        return new CompiledGraph(adjacencyList);
+    }
+
+    // Compiled view of the current topology, rebuilt only after the graph has changed: patched
+    // from the last snapshot with the logged writes, or compiled from scratch without a log
+    public CompiledGraph snapshot() {
+        CompiledGraph current = snapshot;
+        if (current == null) {
+            current = pending != null ? base.withChanges(pending) : compile();
+            adoptSnapshot(current);
         }
-        currentDepth++;
+        return current;
     }
 
-    return discoveredDevices;
-  }
+     
+    public List<String> discoverDevices(String startNode, int depthLimit) {
+        return snapshot().discoverDevices(startNode, depthLimit);
+    }
 }
@@ -0,0 +1,11 @@
+package networktopology;
+
+// Notified by Graph after every topology change, on the thread that made the change.
+// ConcurrentGraph may instead call it from another writer's thread, but never from two threads
+// at once, and always in the order the changes were applied to each link.
+public interface GraphChangeListener {
+    void edgeAdded(String source, String destination, int weight);
+
+    // oldWeight is the smallest weight the source -> destination link had before the update
+    void edgeWeightChanged(String source, String destination, int oldWeight, int newWeight);
+}
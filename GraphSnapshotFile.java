@@ -0,0 +1,187 @@
+package networktopology;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+// Binary snapshot of a CompiledGraph: a string table followed by the CSR arrays, including
+// the reverse index, so loading is a handful of bulk copies out of memory-mapped regions
+// and no edge list has to be rebuilt.
+//
+//   header:  int magic, int version, int nodeCount, int edgeCount, long nameBytes, long reserved
+//   int[nodeCount + 1] nameOffsets, byte[nameBytes] UTF-8 names (padded to 8)
+//   int[nodeCount + 1] offsets, int[edgeCount] targets, int[edgeCount] weights
+//   int[nodeCount + 1] reverseOffsets, int[edgeCount] reverseSources, int[edgeCount] reverseEdges
+//
+// Every section starts on an 8-byte boundary; all values are little-endian.
+public class GraphSnapshotFile {
+    private static final int MAGIC = 0x4753544E; // "NTSG" in little-endian byte order
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int STAGING_BYTES = 1 << 20;
+    private static final int MAX_MAPPED_INTS = 1 << 28; // Map at most 1 GiB at a time
+
+    private GraphSnapshotFile() {
+    }
+
+    public static void write(CompiledGraph graph, Path file) throws IOException {
+        int nodeCount = graph.nodeCount();
+        byte[][] encoded = new byte[nodeCount][];
+        int[] nameOffsets = new int[nodeCount + 1];
+        long nameBytes = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            encoded[node] = graph.names[node].getBytes(StandardCharsets.UTF_8);
+            nameBytes += encoded[node].length;
+            if (nameBytes > Integer.MAX_VALUE) throw new IOException("Device names exceed 2 GiB");
+            nameOffsets[node + 1] = (int) nameBytes;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer staging = ByteBuffer.allocateDirect(STAGING_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            staging.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(graph.edgeCount())
+                    .putLong(nameBytes).putLong(0);
+            writeInts(channel, staging, nameOffsets);
+            for (byte[] name : encoded) {
+                for (int written = 0; written < name.length; ) {
+                    if (!staging.hasRemaining()) flush(channel, staging);
+                    int length = Math.min(staging.remaining(), name.length - written);
+                    staging.put(name, written, length);
+                    written += length;
+                }
+            }
+            pad(channel, staging);
+            writeInts(channel, staging, graph.offsets);
+            writeInts(channel, staging, graph.targets);
+            writeInts(channel, staging, graph.weights);
+            writeInts(channel, staging, graph.reverseOffsets);
+            writeInts(channel, staging, graph.reverseSources);
+            writeInts(channel, staging, graph.reverseEdges);
+            flush(channel, staging);
+        }
+    }
+
+    public static CompiledGraph read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("Not a topology snapshot: " + file);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a topology snapshot: " + file);
+            if (header.getInt(4) != VERSION) throw new IOException("Unsupported snapshot version " + header.getInt(4));
+            int nodeCount = header.getInt(8);
+            int edgeCount = header.getInt(12);
+            long nameBytes = header.getLong(16);
+
+            long nodeSection = align(4L * (nodeCount + 1));
+            long edgeSection = align(4L * edgeCount);
+            long expected = HEADER_BYTES + nodeSection + align(nameBytes) + 2 * (nodeSection + 2 * edgeSection);
+            if (nodeCount < 0 || edgeCount < 0 || nameBytes < 0 || channel.size() != expected) {
+                throw new IOException("Truncated or corrupt topology snapshot: " + file);
+            }
+
+            long position = HEADER_BYTES;
+            int[] nameOffsets = readInts(channel, position, nodeCount + 1);
+            position += nodeSection;
+            MappedByteBuffer nameTable = channel.map(FileChannel.MapMode.READ_ONLY, position, nameBytes);
+            position += align(nameBytes);
+            int[] offsets = readInts(channel, position, nodeCount + 1);
+            position += nodeSection;
+            int[] targets = readInts(channel, position, edgeCount);
+            position += edgeSection;
+            int[] weights = readInts(channel, position, edgeCount);
+            position += edgeSection;
+            int[] reverseOffsets = readInts(channel, position, nodeCount + 1);
+            position += nodeSection;
+            int[] reverseSources = readInts(channel, position, edgeCount);
+            position += edgeSection;
+            int[] reverseEdges = readInts(channel, position, edgeCount);
+
+            // Every index is range-checked, so a corrupt file fails here rather than in a later query
+            if (!ascending(nameOffsets, nameBytes) || !ascending(offsets, edgeCount) || !ascending(reverseOffsets, edgeCount)
+                    || !within(targets, nodeCount) || !within(reverseSources, nodeCount) || !within(reverseEdges, edgeCount)) {
+                throw new IOException("Corrupt topology snapshot: " + file);
+            }
+
+            // Decode names in parallel straight from the mapping; each task reads through its own view
+            String[] names = new String[nodeCount];
+            IntStream.range(0, (nodeCount + 4095) / 4096).parallel().forEach(block -> {
+                ByteBuffer view = nameTable.duplicate();
+                byte[] bytes = new byte[64];
+                int end = Math.min(nodeCount, (block + 1) * 4096);
+                for (int node = block * 4096; node < end; node++) {
+                    int length = nameOffsets[node + 1] - nameOffsets[node];
+                    if (bytes.length < length) bytes = new byte[length];
+                    view.get(nameOffsets[node], bytes, 0, length);
+                    names[node] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                }
+            });
+            return new CompiledGraph(names, offsets, targets, weights, reverseOffsets, reverseSources, reverseEdges);
+        }
+    }
+
+    // True if offsets starts at 0, never decreases and ends at end
+    private static boolean ascending(int[] offsets, long end) {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != end) return false;
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) return false;
+        }
+        return true;
+    }
+
+    // True if every value is in [0, bound)
+    private static boolean within(int[] values, int bound) {
+        for (int value : values) {
+            if (value < 0 || value >= bound) return false;
+        }
+        return true;
+    }
+
+    // Bulk-copies count ints starting at position out of one or more mapped windows
+    private static int[] readInts(FileChannel channel, long position, int count) throws IOException {
+        int[] values = new int[count];
+        for (int done = 0; done < count; ) {
+            int length = Math.min(MAX_MAPPED_INTS, count - done);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * done, 4L * length);
+            window.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values, done, length);
+            done += length;
+        }
+        return values;
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer staging, int[] values) throws IOException {
+        for (int written = 0; written < values.length; ) {
+            if (staging.remaining() < 4) flush(channel, staging);
+            int length = Math.min(staging.remaining() / 4, values.length - written);
+            staging.asIntBuffer().put(values, written, length);
+            staging.position(staging.position() + 4 * length);
+            written += length;
+        }
+        pad(channel, staging);
+    }
+
+    // Pads the file position (written bytes plus staged bytes) to a multiple of 8
+    private static void pad(FileChannel channel, ByteBuffer staging) throws IOException {
+        long position = channel.position() + staging.position();
+        for (long i = position; i < align(position); i++) {
+            if (!staging.hasRemaining()) flush(channel, staging);
+            staging.put((byte) 0);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer staging) throws IOException {
+        staging.flip();
+        while (staging.hasRemaining()) {
+            channel.write(staging);
+        }
+        staging.clear();
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,116 @@
+package networktopology;
+
+import java.util.Arrays;
+
+// Binary min-heap over dense int ids with decrease-key.
+// Keys are longs so callers can add heuristics to int distances without overflow.
+// All storage is preallocated and reused; clear() only touches ids still in the heap.
+public class IndexedMinHeap {
+    private int[] heap;      // heap slot -> id
+    private long[] keys;     // id -> key
+    private int[] positions; // id -> heap slot, or -1 if not queued
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[Math.max(capacity, 1)];
+        keys = new long[Math.max(capacity, 1)];
+        positions = new int[Math.max(capacity, 1)];
+        Arrays.fill(positions, -1);
+    }
+
+    // Grow to hold ids in [0, capacity); existing contents are kept
+    public void ensureCapacity(int capacity) {
+        if (capacity <= positions.length) return;
+        int oldLength = positions.length;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, oldLength, capacity, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    // Insert id, or lower its key if it is already queued with a larger one
+    public void insertOrDecrease(int id, long key) {
+        int slot = positions[id];
+        if (slot < 0) {
+            slot = size++;
+            heap[slot] = id;
+            positions[id] = slot;
+            keys[id] = key;
+            siftUp(slot);
+        } else if (key < keys[id]) {
+            keys[id] = key;
+            siftUp(slot);
+        }
+    }
+
+    public int poll() {
+        int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        long key = keys[id];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) break;
+            heap[slot] = parentId;
+            positions[parentId] = slot;
+            slot = parent;
+        }
+        heap[slot] = id;
+        positions[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        long key = keys[id];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (key <= keys[childId]) break;
+            heap[slot] = childId;
+            positions[childId] = slot;
+            slot = child;
+        }
+        heap[slot] = id;
+        positions[id] = slot;
+    }
+}
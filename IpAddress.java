@@ -0,0 +1,158 @@
+package networktopology;
+
+// Allocation-free IPv4/IPv6 parsing into a pair of longs.
+// Addresses are left-aligned in 128 bits: an IPv4 address occupies the top 32 bits of the
+// high word, so both families can be walked bit by bit through the same PrefixTrie code.
+public final class IpAddress {
+    public static final int NOT_IP = 0;
+    public static final int IPV4 = 4;
+    public static final int IPV6 = 6;
+
+    // Scratch layout: [0] high word, [1] low word, [2] prefix length, [4..11] IPv6 groups
+    public static final int SCRATCH_SIZE = 12;
+
+    private IpAddress() {
+    }
+
+    public static int width(int family) {
+        return family == IPV4 ? 32 : 128;
+    }
+
+    // Bit i (0 = most significant) of a left-aligned address
+    public static int bit(long high, long low, int i) {
+        return i < 64 ? (int) (high >>> (63 - i)) & 1 : (int) (low >>> (127 - i)) & 1;
+    }
+
+    // Parse a plain address into scratch[0..1]; returns IPV4, IPV6 or NOT_IP
+    public static int parse(String text, long[] scratch) {
+        return parse(text, 0, text.length(), scratch);
+    }
+
+    public static int parse(String text, int from, int to, long[] scratch) {
+        if (from >= to) return NOT_IP;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == ':') {
+                return parseIpv6(text, from, to, scratch) ? IPV6 : NOT_IP;
+            }
+        }
+        long ipv4 = parseIpv4(text, from, to);
+        if (ipv4 < 0) return NOT_IP;
+        scratch[0] = ipv4 << 32;
+        scratch[1] = 0;
+        return IPV4;
+    }
+
+    // Parse "address" or "address/length" into scratch[0..2] with host bits cleared.
+    // Returns IPV4, IPV6 or NOT_IP (also for out-of-range prefix lengths).
+    public static int parsePrefix(String text, long[] scratch) {
+        int slash = text.indexOf('/');
+        int end = slash < 0 ? text.length() : slash;
+        int family = parse(text, 0, end, scratch);
+        if (family == NOT_IP) return NOT_IP;
+
+        int length = width(family);
+        if (slash >= 0) {
+            try {
+                length = Integer.parseInt(text.substring(slash + 1).trim());
+            } catch (NumberFormatException ex) {
+                return NOT_IP;
+            }
+            if (length < 0 || length > width(family)) return NOT_IP;
+        }
+        scratch[0] &= mask(length);
+        scratch[1] &= mask(length - 64);
+        scratch[2] = length;
+        return family;
+    }
+
+    // Mask keeping the top `bits` bits of one 64-bit word
+    private static long mask(int bits) {
+        if (bits <= 0) return 0;
+        if (bits >= 64) return -1L;
+        return -1L << (64 - bits);
+    }
+
+    // Dotted quad to an unsigned 32-bit value, or -1 if malformed
+    static long parseIpv4(String text, int from, int to) {
+        long value = 0;
+        int octets = 0;
+        int i = from;
+        while (i < to) {
+            int octet = 0;
+            int digits = 0;
+            while (i < to && text.charAt(i) != '.') {
+                char c = text.charAt(i++);
+                if (c < '0' || c > '9' || ++digits > 3) return -1;
+                octet = octet * 10 + (c - '0');
+            }
+            if (digits == 0 || octet > 255) return -1;
+            value = (value << 8) | octet;
+            octets++;
+            if (i < to) {
+                i++; // Skip '.'
+                if (i == to) return -1;
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    private static boolean parseIpv6(String text, int from, int to, long[] scratch) {
+        int count = 0;
+        int gap = -1; // Group index where "::" appeared
+        int i = from;
+        if (i + 1 < to && text.charAt(i) == ':' && text.charAt(i + 1) == ':') {
+            gap = 0;
+            i += 2;
+        }
+        while (i < to) {
+            int start = i;
+            int group = 0;
+            while (i < to && text.charAt(i) != ':' && text.charAt(i) != '.') {
+                int digit = Character.digit(text.charAt(i++), 16);
+                if (digit < 0 || i - start > 4) return false;
+                group = (group << 4) | digit;
+            }
+            if (i < to && text.charAt(i) == '.') {
+                // Embedded IPv4 tail fills the last two groups
+                long ipv4 = parseIpv4(text, start, to);
+                if (ipv4 < 0 || count > 6) return false;
+                scratch[4 + count++] = ipv4 >>> 16;
+                scratch[4 + count++] = ipv4 & 0xffff;
+                break;
+            }
+            if (i == start || count == 8) return false;
+            scratch[4 + count++] = group;
+            if (i == to) break;
+            i++; // Skip ':'
+            if (i < to && text.charAt(i) == ':') {
+                if (gap >= 0) return false;
+                gap = count;
+                i++;
+            } else if (i == to) {
+                return false; // Trailing single ':'
+            }
+        }
+        if (gap < 0 ? count != 8 : count > 7) return false;
+
+        long high = 0;
+        long low = 0;
+        int zeros = 8 - count;
+        for (int position = 0, g = 0; position < 8; position++) {
+            long value;
+            if (gap >= 0 && g == gap && zeros > 0) {
+                value = 0;
+                zeros--;
+            } else {
+                value = scratch[4 + g++];
+            }
+            if (position < 4) {
+                high = (high << 16) | value;
+            } else {
+                low = (low << 16) | value;
+            }
+        }
+        scratch[0] = high;
+        scratch[1] = low;
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package networktopology;
+
+// ALT heuristic: precomputed distances to and from a few landmark nodes.
+// By the triangle inequality, d(u, t) >= d(L, t) - d(L, u) and d(u, t) >= d(u, L) - d(t, L)
+// for every landmark L, which gives a consistent lower bound for A* and bidirectional search.
+public class Landmarks implements DistanceHeuristic {
+    public static final int DEFAULT_COUNT = 8;
+
+    private final int count;
+    private final int[] landmarkIds;
+    private final int[] fromLandmark; // fromLandmark[node * count + i] = d(L_i, node)
+    private final int[] toLandmark;   // toLandmark[node * count + i] = d(node, L_i)
+
+    private Landmarks(int[] landmarkIds, int[] fromLandmark, int[] toLandmark) {
+        this.count = landmarkIds.length;
+        this.landmarkIds = landmarkIds;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    // Farthest-point selection: each new landmark is the node farthest from those already chosen
+    public static Landmarks select(CompiledGraph graph, int requested) {
+        int nodeCount = graph.nodeCount();
+        int count = Math.min(requested, nodeCount);
+        int[] landmarkIds = new int[count];
+        int[] fromLandmark = new int[nodeCount * count];
+        int[] toLandmark = new int[nodeCount * count];
+        if (count == 0) return new Landmarks(landmarkIds, fromLandmark, toLandmark);
+
+        ShortestPathEngine engine = ShortestPathEngine.forCurrentThread();
+        long[] closeness = new long[nodeCount]; // Min distance to any chosen landmark
+        java.util.Arrays.fill(closeness, Long.MAX_VALUE);
+
+        // Start from the node farthest from node 0
+        engine.run(graph, 0, -1);
+        int next = farthest(engine, nodeCount, null);
+
+        for (int i = 0; i < count; i++) {
+            landmarkIds[i] = next;
+
+            engine.run(graph, next, -1);
+            for (int node = 0; node < nodeCount; node++) {
+                int distance = engine.distance(node);
+                fromLandmark[node * count + i] = distance;
+                if (distance != ShortestPathEngine.UNREACHABLE) {
+                    closeness[node] = Math.min(closeness[node], distance);
+                }
+            }
+
+            engine.runReverse(graph, next, -1);
+            for (int node = 0; node < nodeCount; node++) {
+                toLandmark[node * count + i] = engine.distance(node);
+            }
+
+            next = farthest(engine, nodeCount, closeness);
+        }
+        return new Landmarks(landmarkIds, fromLandmark, toLandmark);
+    }
+
+    // Node with the largest closeness value (or largest distance in the last run when closeness is null).
+    // Nodes no landmark reaches yet rank first so disconnected regions also get covered.
+    private static int farthest(ShortestPathEngine engine, int nodeCount, long[] closeness) {
+        int best = 0;
+        long bestValue = -1;
+        for (int node = 0; node < nodeCount; node++) {
+            long value = closeness == null ? engine.distance(node) : closeness[node];
+            if (closeness == null && value == ShortestPathEngine.UNREACHABLE) continue;
+            if (value > bestValue) {
+                bestValue = value;
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int landmark(int index) {
+        return landmarkIds[index];
+    }
+
+    @Override
+    public int estimate(int from, int to) {
+        long best = 0;
+        int fromBase = from * count;
+        int toBase = to * count;
+        for (int i = 0; i < count; i++) {
+            // Terms involving unreachable landmarks carry no information and are skipped
+            int landmarkToTarget = fromLandmark[toBase + i];
+            int landmarkToSource = fromLandmark[fromBase + i];
+            if (landmarkToTarget != ShortestPathEngine.UNREACHABLE && landmarkToSource != ShortestPathEngine.UNREACHABLE) {
+                best = Math.max(best, (long) landmarkToTarget - landmarkToSource);
+            }
+            int sourceToLandmark = toLandmark[fromBase + i];
+            int targetToLandmark = toLandmark[toBase + i];
+            if (sourceToLandmark != ShortestPathEngine.UNREACHABLE && targetToLandmark != ShortestPathEngine.UNREACHABLE) {
+                best = Math.max(best, (long) sourceToLandmark - targetToLandmark);
+            }
+        }
+        return (int) Math.min(best, Integer.MAX_VALUE - 1);
+    }
+}
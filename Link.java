@@ -0,0 +1,19 @@
+package networktopology;
+
+// A directed connection reported by queries: source -> destination with its weight
+public class Link {
+    public final String source;
+    public final String destination;
+    public final int weight;
+
+    public Link(String source, String destination, int weight) {
+        this.source = source;
+        this.destination = destination;
+        this.weight = weight;
+    }
+
+    @Override
+    public String toString() {
+        return source + " -> " + destination + " (Weight: " + weight + ")";
+    }
+}
@@ -1,12 +1,27 @@
 package networktopology;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Headless mode: "--server [port]" serves the line protocol over TCP, "--stdio" over stdin/stdout
+        if (args.length > 0 && (args[0].equals("--server") || args[0].equals("--stdio"))) {
+            QueryServer server = new QueryServer(new ConcurrentGraph(), new FirewallManager());
+            if (args[0].equals("--stdio")) {
+                server.serve(System.in, System.out);
+            } else {
+                server.serve(args.length > 1 ? Integer.parseInt(args[1]) : QueryServer.DEFAULT_PORT);
+            }
+            server.close();
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
-        Graph graph = new Graph(); // Create an instance of the Graph class
+        Graph graph = new ConcurrentGraph(); // Shared with the Swing windows, so use the thread-safe variant
 
         while (true) {
             System.out.println("\n=== Network Topology Menu ===");
@@ -17,6 +32,11 @@ public class Main {
             System.out.println("5. Detect Bottlenecks (Identify high-latency connections)");
             System.out.println("6. Exit (Close the application)");
             System.out.println("7. Launch Device Discovery (Discover devices in the network)");
+            System.out.println("8. Save Topology Snapshot (Write the topology to a binary file)");
+            System.out.println("9. Load Topology Snapshot (Add the topology stored in a binary file)");
+            System.out.println("10. Import Topology File (Bulk-load links from an edge-list or CSV file)");
+            System.out.println("11. Show Metrics (Query counts and latency percentiles)");
+            System.out.println("12. Resilience Analysis (Find single points of failure)");
             System.out.print("Choose an option: ");
 
             try {
@@ -47,7 +67,11 @@ public class Main {
                         System.out.println("Launching Network Topology Visualization...");
                         JFrame frame = new JFrame("Network Topology Visualization");
                         frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-                        frame.add(new NetworkTopologyVisualizer(graph));
+                        NetworkTopologyVisualizer visualizer = new NetworkTopologyVisualizer(graph);
+                        JCheckBox forceDirected = new JCheckBox("Force-directed layout");
+                        forceDirected.addActionListener(e -> visualizer.setForceDirected(forceDirected.isSelected()));
+                        frame.add(forceDirected, java.awt.BorderLayout.NORTH);
+                        frame.add(visualizer);
                         frame.pack();
                         frame.setVisible(true);
                         break;
@@ -81,10 +105,65 @@ public class Main {
                         SwingUtilities.invokeLater(() -> new DeviceDiscoveryUI(graph).createAndShowGUI());
                         break;
 
+                    case 8:
+                        // Feature 7: Save Topology Snapshot
+                        System.out.print("Enter Snapshot File: ");
+                        String saveFile = scanner.nextLine();
+                        graph.saveSnapshot(Paths.get(saveFile));
+                        System.out.println("Topology saved to " + saveFile);
+                        break;
+
+                    case 9:
+                        // Feature 7: Load Topology Snapshot
+                        System.out.print("Enter Snapshot File: ");
+                        String loadFile = scanner.nextLine();
+                        long loadStart = System.nanoTime();
+                        graph.loadSnapshot(Paths.get(loadFile));
+                        System.out.println("Topology loaded from " + loadFile + " in "
+                                + (System.nanoTime() - loadStart) / 1_000_000 + " ms");
+                        break;
+
+                    case 10:
+                        // Feature 8: Import Topology File
+                        System.out.print("Enter Edge-List or CSV File: ");
+                        String importFile = scanner.nextLine();
+                        TopologyImporter.ImportReport report = new TopologyImporter().importFile(Paths.get(importFile), graph);
+                        System.out.println(report);
+                        for (String rejected : report.rejectedSamples) {
+                            System.out.println("Rejected " + rejected);
+                        }
+                        break;
+
+                    case 11:
+                        // Feature 9: Show Metrics
+                        System.out.print("Format (text/json): ");
+                        String format = scanner.nextLine().trim();
+                        System.out.println(format.equalsIgnoreCase("json") ? Metrics.snapshotJson() : Metrics.snapshotText());
+                        break;
+
+                    case 12:
+                        // Feature 10: Resilience Analysis
+                        List<String> articulationPoints = graph.findArticulationPoints();
+                        System.out.println("Critical Devices (" + articulationPoints.size() + "):");
+                        for (String device : articulationPoints) {
+                            System.out.println(device);
+                        }
+                        List<Link> bridges = graph.findBridges();
+                        System.out.println("Critical Connections (" + bridges.size() + "):");
+                        for (Link link : bridges) {
+                            System.out.println(link);
+                        }
+                        List<List<String>> components = graph.findStronglyConnectedComponents();
+                        System.out.println("Strongly Connected Groups: " + components.size()
+                                + (components.isEmpty() ? "" : " (largest has " + components.get(0).size() + " devices)"));
+                        break;
+
                     default:
                         // Invalid Input
-                        System.out.println("Invalid choice. Please enter a number between 1 and 7.");
+                        System.out.println("Invalid choice. Please enter a number between 1 and 12.");
                 }
+            } catch (IOException ex) {
+                System.out.println("Error: " + ex.getMessage());
             } catch (Exception ex) {
                 System.out.println("Error: Invalid input. Please enter a valid option.");
                 scanner.nextLine(); // Clear invalid input
@@ -0,0 +1,126 @@
+package networktopology;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Process-wide counters and latency histograms for the graph and firewall hot paths.
+// Instrumented code guards every update with "if (Metrics.ENABLED)"; the flag is a static final
+// read once from the system property networktopology.metrics (default on), so running with
+// -Dnetworktopology.metrics=false lets the JIT drop the instrumentation entirely.
+public final class Metrics {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("networktopology.metrics"));
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+
+    // Path queries (point-to-point searches)
+    public static final LatencyHistogram PATH_LATENCY = histogram("path.latency.ns");
+    public static final LatencyHistogram PATH_SETTLED = histogram("path.nodes.settled");
+    public static final LongAdder PATH_RELAXED = counter("path.edges.relaxed");
+    public static final LongAdder PATH_UNREACHABLE = counter("path.unreachable");
+
+    // Device discovery
+    public static final LatencyHistogram DISCOVERY_LATENCY = histogram("discovery.latency.ns");
+    public static final LatencyHistogram DISCOVERY_FRONTIER = histogram("discovery.frontier.size");
+    public static final LongAdder DISCOVERY_BOTTOM_UP_LEVELS = counter("discovery.levels.bottom_up");
+    public static final LongAdder DISCOVERY_DEVICES = counter("discovery.devices.found");
+
+    // Bottleneck detection
+    public static final LatencyHistogram BOTTLENECK_LATENCY = histogram("bottleneck.latency.ns");
+    public static final LongAdder BOTTLENECK_LINKS = counter("bottleneck.links.reported");
+
+    // Firewall decisions
+    public static final LatencyHistogram FIREWALL_LATENCY = histogram("firewall.latency.ns");
+    public static final LatencyHistogram FIREWALL_RULES_EVALUATED = histogram("firewall.rules.evaluated");
+    public static final LongAdder FIREWALL_ALLOWED = counter("firewall.allowed");
+    public static final LongAdder FIREWALL_BLOCKED = counter("firewall.blocked");
+
+    private Metrics() {
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    // Value sampled at snapshot time; re-registering a name replaces the previous source
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    }
+
+    public static String snapshotText() {
+        StringBuilder out = new StringBuilder("Metrics" + (ENABLED ? "" : " (disabled)") + ":\n");
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            out.append("  ").append(entry.getKey()).append(" = ").append(entry.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, LongSupplier> entry : GAUGES.entrySet()) {
+            out.append("  ").append(entry.getKey()).append(" = ").append(entry.getValue().getAsLong()).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            out.append("  ").append(entry.getKey())
+                    .append(" count=").append(h.count())
+                    .append(" mean=").append(Math.round(h.mean()))
+                    .append(" p50=").append(h.percentile(50))
+                    .append(" p90=").append(h.percentile(90))
+                    .append(" p99=").append(h.percentile(99))
+                    .append(" p99.9=").append(h.percentile(99.9))
+                    .append(" max=").append(h.max()).append('\n');
+        }
+        return out.toString();
+    }
+
+    public static String snapshotJson() {
+        StringBuilder out = new StringBuilder("{\"enabled\":").append(ENABLED).append(",\"counters\":{");
+        String separator = "";
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            out.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().sum());
+            separator = ",";
+        }
+        for (Map.Entry<String, LongSupplier> entry : GAUGES.entrySet()) {
+            out.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().getAsLong());
+            separator = ",";
+        }
+        out.append("},\"histograms\":{");
+        separator = "";
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            out.append(separator).append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(h.count())
+                    .append(",\"mean\":").append(Math.round(h.mean()))
+                    .append(",\"p50\":").append(h.percentile(50))
+                    .append(",\"p90\":").append(h.percentile(90))
+                    .append(",\"p99\":").append(h.percentile(99))
+                    .append(",\"p999\":").append(h.percentile(99.9))
+                    .append(",\"max\":").append(h.max()).append('}');
+            separator = ",";
+        }
+        return out.append("}}").toString();
+    }
+
+    // Hand a snapshot to sink every period until the returned executor is shut down
+    public static ScheduledExecutorService startReporter(long period, TimeUnit unit, boolean json, Consumer<String> sink) {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> sink.accept(json ? snapshotJson() : snapshotText()), period, period, unit);
+        return reporter;
+    }
+}
@@ -2,42 +2,163 @@ package networktopology;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.event.MouseMotionAdapter;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
+// Draws the topology with pan (drag) and zoom (mouse wheel).
+// The node layout is computed once per graph snapshot and indexed in a SpatialGrid, so hover
+// detection and viewport culling only look at nearby nodes. Links are found through the nodes
+// near the view as well, except for the few much longer than average, which are kept in a list
+// that every render checks. Nodes, links and labels are
+// rendered into an offscreen image that is reused until the view or the topology changes;
+// hovering only repaints the regions of the old and new highlighted node.
+// When many nodes are visible, nodes falling into the same few-pixel cell are drawn as one
+// cluster dot, links are drawn once per pair of cells, and labels are left out.
+// Nodes sit on a circle by default; setForceDirected(true) switches to a ForceDirectedLayout
+// that runs in the background and streams its progress into the view.
 public class NetworkTopologyVisualizer extends JPanel {
+    private static final int DETAIL_LIMIT = 2000;  // Most visible nodes still drawn as labelled circles
+    private static final int LABEL_LIMIT = 300;    // Most visible nodes whose names and link weights are drawn
+    private static final int CLUSTER_CELL = 4;     // Cluster cell size in pixels
+    private static final int HOVER_DISTANCE = 6;   // Hover reach in pixels for clustered nodes
+
     private Graph graph;
-    private Map<String, Point> nodePositions;
-    private String hoveredNode;
     private int radius = 20;
 
+    // Layout of the last snapshot, in world coordinates on the unit circle
+    private CompiledGraph topology;
+    private CompiledGraph latest;            // Newest snapshot compiled in the background
+    private long latestModifications = -1;   // graph.modificationCount() before latest was compiled
+    private boolean compiling;               // A snapshot is being compiled (EDT only)
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private SpatialGrid index;
+    private float linkReach;              // Links up to this long are found from source nodes near the view
+    private int[] longLinks = new int[0]; // Source node and edge of every longer link
+
+    // Force-directed mode: the running layout and its last positions in layout coordinates
+    private boolean forceDirected;
+    private ForceDirectedLayout forceLayout;
+    private float[] layoutX;
+    private float[] layoutY;
+
+    // View: screen = center + pan + world * scale, where scale = zoom * min(width, height) / 3
+    private double zoom = 1;
+    private double panX;
+    private double panY;
+    private Point dragStart;
+    private double viewScale;   // Derived from the fields above by updateView()
+    private double originX;
+    private double originY;
+
+    // Offscreen rendering and the view it was made for
+    private BufferedImage buffer;
+    private CompiledGraph bufferTopology;
+    private double bufferZoom;
+    private double bufferPanX;
+    private double bufferPanY;
+    private boolean bufferDetailed;
+
+    private final int[] clipped = new int[4]; // Output of clipToView
+    private int hoveredNode = -1;
+    private volatile boolean changed; // Set by graph listeners; coalesces repaints during bulk updates
+
+    private final GraphChangeListener changeListener = new GraphChangeListener() {
+        @Override
+        public void edgeAdded(String source, String destination, int weight) {
+            topologyChanged();
+        }
+
+        @Override
+        public void edgeWeightChanged(String source, String destination, int oldWeight, int newWeight) {
+            topologyChanged();
+        }
+    };
+
     public NetworkTopologyVisualizer(Graph graph) {
         this.graph = graph;
-        this.nodePositions = new HashMap<>();
-        this.hoveredNode = null;
         setPreferredSize(new Dimension(800, 600));
         setBackground(Color.WHITE);
 
-        // Add mouse listener for hover detection
-        addMouseMotionListener(new MouseMotionAdapter() {
+        MouseAdapter mouse = new MouseAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
-                Point mousePos = e.getPoint();
-                for (Map.Entry<String, Point> entry : nodePositions.entrySet()) {
-                    Point nodePos = entry.getValue();
-                    if (mousePos.distance(nodePos) <= radius) {
-                        hoveredNode = entry.getKey();
-                        repaint();
-                        return;
-                    }
-                }
-                hoveredNode = null; // Reset if no node is hovered
+                updateHover(e.getPoint());
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart == null) return;
+                panX += e.getX() - dragStart.x;
+                panY += e.getY() - dragStart.y;
+                dragStart = e.getPoint();
+                repaint(); // The old image is shifted while dragging and re-rendered on release
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragStart = null;
                 repaint();
             }
-        });
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                double factor = Math.pow(1.2, -e.getPreciseWheelRotation());
+                double newZoom = Math.max(0.1, Math.min(1e5, zoom * factor));
+                factor = newZoom / zoom;
+                // Keep the point under the cursor in place
+                panX = e.getX() - getWidth() / 2.0 - (e.getX() - getWidth() / 2.0 - panX) * factor;
+                panY = e.getY() - getHeight() / 2.0 - (e.getY() - getHeight() / 2.0 - panY) * factor;
+                zoom = newZoom;
+                hoveredNode = -1;
+                repaint();
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        graph.addChangeListener(changeListener);
+    }
+
+    @Override
+    public void removeNotify() {
+        graph.removeChangeListener(changeListener);
+        if (forceLayout != null) forceLayout.stop();
+        super.removeNotify();
+    }
+
+    // Switch between the circle layout and a background force-directed layout (EDT only)
+    public void setForceDirected(boolean enabled) {
+        if (enabled == forceDirected) return;
+        forceDirected = enabled;
+        if (forceLayout != null) {
+            forceLayout.stop();
+            forceLayout = null;
+        }
+        layoutX = null;
+        layoutY = null;
+        if (topology != null) layout(topology);
+        bufferTopology = null;
+        repaint();
+    }
+
+    public boolean isForceDirected() {
+        return forceDirected;
     }
 
     @Override
@@ -45,62 +166,450 @@ public class NetworkTopologyVisualizer extends JPanel {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
 
-        Map<String, List<Graph.Edge>> adjacencyList = graph.getGraphData();
-        int totalNodes = adjacencyList.keySet().size();
+        changed = false;
+        // Paint the last compiled snapshot; a newer one is compiled off the EDT and swapped in
+        // when done, so a burst of changes never stalls panning or hover
+        requestSnapshot();
+        CompiledGraph current = latest;
+        if (current == null) {
+            g.drawString("Loading topology...", getWidth() / 2 - 50, getHeight() / 2);
+            return;
+        }
+        if (current != topology) layout(current);
 
-        if (totalNodes == 0) {
+        if (topology.nodeCount() == 0) {
             g.drawString("No nodes to display. Add some nodes and edges to visualize the topology.", getWidth() / 2 - 100, getHeight() / 2);
             return;
         }
 
-        int centerX = getWidth() / 2;
-        int centerY = getHeight() / 2;
-        int circleRadius = Math.min(getWidth(), getHeight()) / 3;
+        updateView();
+        boolean sameScene = buffer != null && bufferTopology == topology && bufferZoom == zoom
+                && buffer.getWidth() == getWidth() && buffer.getHeight() == getHeight();
+        boolean moved = bufferPanX != panX || bufferPanY != panY;
+        if (!sameScene || (moved && dragStart == null)) {
+            renderScene();
+            moved = false;
+        }
+        // While dragging, the cached image is drawn shifted instead of being re-rendered
+        g2d.drawImage(buffer, (int) Math.round(panX - bufferPanX), (int) Math.round(panY - bufferPanY), null);
 
-        int angleStep = 360 / totalNodes;
-        int currentAngle = 0;
+        if (hoveredNode >= 0 && !moved) paintHover(g2d, hoveredNode);
+    }
 
-        nodePositions.clear();
+    // Compile a snapshot in the background unless one is running or the last is still current
+    private void requestSnapshot() {
+        long modifications = graph.modificationCount(); // Read first, so a concurrent change is compiled again
+        if (compiling || modifications == latestModifications) return;
+        compiling = true;
+        new SwingWorker<CompiledGraph, Void>() {
+            @Override
+            protected CompiledGraph doInBackground() {
+                return graph.snapshot();
+            }
 
-        // Draw Nodes
-        for (String node : adjacencyList.keySet()) {
-            int x = centerX + (int) (circleRadius * Math.cos(Math.toRadians(currentAngle)));
-            int y = centerY + (int) (circleRadius * Math.sin(Math.toRadians(currentAngle)));
+            @Override
+            protected void done() {
+                compiling = false;
+                try {
+                    latest = get();
+                    latestModifications = modifications;
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Could not compile the topology: " + e.getMessage());
+                    return;
+                }
+                repaint(); // Shows the new snapshot and, if the graph changed meanwhile, compiles again
+            }
+        }.execute();
+    }
+
+    private void layout(CompiledGraph current) {
+        if (forceDirected) {
+            startForceLayout(current);
+        } else {
+            circleLayout(current);
+        }
+        topology = current;
+        hoveredNode = -1;
+    }
 
-            nodePositions.put(node, new Point(x, y));
+    // Circle layout with a fractional angle step, so any number of nodes gets distinct positions
+    private void circleLayout(CompiledGraph current) {
+        int nodeCount = current.nodeCount();
+        xs = new float[nodeCount];
+        ys = new float[nodeCount];
+        double angleStep = 2 * Math.PI / Math.max(1, nodeCount);
+        for (int id = 0; id < nodeCount; id++) {
+            xs[id] = (float) Math.cos(id * angleStep);
+            ys[id] = (float) Math.sin(id * angleStep);
+        }
+        index = new SpatialGrid(xs, ys, nodeCount);
+        indexLinks(current);
+    }
 
-            // Draw node circle
-            if (node.equals(hoveredNode)) {
-                g2d.setColor(Color.ORANGE);
-            } else {
-                g2d.setColor(Color.CYAN);
+    // Restart the background layout for a new snapshot, warm-started from the previous positions
+    private void startForceLayout(CompiledGraph current) {
+        if (forceLayout != null) forceLayout.stop();
+        ForceDirectedLayout next;
+        if (layoutX == null || forceLayout == null) {
+            next = new ForceDirectedLayout(current);
+        } else {
+            float[][] start = ForceDirectedLayout.warmStart(forceLayout.graph(), layoutX, layoutY, current);
+            next = new ForceDirectedLayout(current, start[0], start[1], true);
+        }
+        forceLayout = next;
+        float[][] initial = next.positions();
+        applyPositions(initial[0], initial[1]);
+        // Latest unapplied update of this layout only, so positions of a replaced layout (sized for
+        // another snapshot) can neither be applied nor take the place of the new layout's update
+        AtomicReference<float[][]> pendingPositions = new AtomicReference<>();
+        next.start((laidOut, x, y, finished) -> {
+            // Keep only the newest update and schedule one EDT pass for it
+            if (pendingPositions.getAndSet(new float[][]{x, y}) == null) {
+                SwingUtilities.invokeLater(() -> {
+                    float[][] positions = pendingPositions.getAndSet(null);
+                    if (positions != null && forceLayout == next) {
+                        applyPositions(positions[0], positions[1]);
+                        bufferTopology = null; // Force a re-render with the new positions
+                        repaint();
+                    }
+                });
+            }
+        });
+    }
+
+    // Scale layout coordinates into the unit-circle world used by the view
+    private void applyPositions(float[] x, float[] y) {
+        layoutX = x;
+        layoutY = y;
+        int nodeCount = x.length;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int id = 0; id < nodeCount; id++) {
+            minX = Math.min(minX, x[id]);
+            minY = Math.min(minY, y[id]);
+            maxX = Math.max(maxX, x[id]);
+            maxY = Math.max(maxY, y[id]);
+        }
+        float centerX = (minX + maxX) / 2;
+        float centerY = (minY + maxY) / 2;
+        float half = Math.max(Math.max(maxX - minX, maxY - minY) / 2, 1e-6f);
+        xs = new float[nodeCount];
+        ys = new float[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            xs[id] = (x[id] - centerX) / half;
+            ys[id] = (y[id] - centerY) / half;
+        }
+        index = new SpatialGrid(xs, ys, nodeCount);
+        indexLinks(forceLayout.graph());
+    }
+
+    // Split the links at four times the mean length, so only outliers need a scan per render
+    private void indexLinks(CompiledGraph current) {
+        int edgeCount = current.edgeCount();
+        double total = 0;
+        for (int id = 0; id < current.nodeCount(); id++) {
+            for (int edge = current.firstEdge(id); edge < current.lastEdge(id); edge++) {
+                total += Math.sqrt(squaredLength(id, current.target(edge)));
+            }
+        }
+        linkReach = edgeCount == 0 ? 0 : (float) (4 * total / edgeCount);
+        float reachSquared = linkReach * linkReach;
+        int[] found = new int[16];
+        int size = 0;
+        for (int id = 0; id < current.nodeCount(); id++) {
+            for (int edge = current.firstEdge(id); edge < current.lastEdge(id); edge++) {
+                if (squaredLength(id, current.target(edge)) <= reachSquared) continue;
+                if (size + 2 > found.length) found = Arrays.copyOf(found, found.length * 2);
+                found[size++] = id;
+                found[size++] = edge;
             }
+        }
+        longLinks = Arrays.copyOf(found, size);
+    }
+
+    private float squaredLength(int source, int target) {
+        float dx = xs[target] - xs[source];
+        float dy = ys[target] - ys[source];
+        return dx * dx + dy * dy;
+    }
+
+    // Source node and edge of every link that may cross the panel grown by the node radius: a
+    // link no longer than linkReach has its source within that distance of the view
+    private int[] visibleLinks() {
+        int[] sources = visibleNodes(radius, linkReach);
+        float reachSquared = linkReach * linkReach;
+        int[] links = new int[16];
+        int size = 0;
+        for (int id : sources) {
+            for (int edge = topology.firstEdge(id); edge < topology.lastEdge(id); edge++) {
+                if (squaredLength(id, topology.target(edge)) > reachSquared) continue; // In longLinks
+                if (size + 2 > links.length) links = Arrays.copyOf(links, links.length * 2);
+                links[size++] = id;
+                links[size++] = edge;
+            }
+        }
+        links = Arrays.copyOf(links, size + longLinks.length);
+        System.arraycopy(longLinks, 0, links, size, longLinks.length);
+        return links;
+    }
+
+    private void renderScene() {
+        int width = Math.max(1, getWidth());
+        int height = Math.max(1, getHeight());
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D g2d = buffer.createGraphics();
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, width, height);
+        g2d.setComposite(AlphaComposite.SrcOver);
+        g2d.setFont(getFont());
+
+        int[] visible = visibleNodes(radius);
+        bufferDetailed = visible.length <= DETAIL_LIMIT;
+        if (bufferDetailed) {
+            renderDetailed(g2d, visible, visible.length <= LABEL_LIMIT);
+        } else {
+            renderClustered(g2d, visible);
+        }
+        g2d.dispose();
+
+        bufferTopology = topology;
+        bufferZoom = zoom;
+        bufferPanX = panX;
+        bufferPanY = panY;
+    }
+
+    private void renderDetailed(Graphics2D g2d, int[] visible, boolean labels) {
+        // Draw Nodes
+        for (int id : visible) {
+            int x = screenX(id);
+            int y = screenY(id);
+            g2d.setColor(Color.CYAN);
             g2d.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
             g2d.setColor(Color.BLACK);
             g2d.drawOval(x - radius, y - radius, 2 * radius, 2 * radius);
 
             // Draw node label
-            g2d.drawString(node, x - radius / 2, y + radius + 10);
-
-            currentAngle += angleStep;
+            if (labels) g2d.drawString(topology.nameOf(id), x - radius / 2, y + radius + 10);
         }
 
         // Draw Edges
         g2d.setColor(Color.BLACK);
-        for (String node : adjacencyList.keySet()) {
-            Point startPoint = nodePositions.get(node);
-            for (Graph.Edge edge : adjacencyList.get(node)) {
-                Point endPoint = nodePositions.get(edge.destination);
-                drawArrow(g2d, startPoint.x, startPoint.y, endPoint.x, endPoint.y);
-
-                // Draw edge weight
-                int midX = (startPoint.x + endPoint.x) / 2 + 10; // Offset by 10 pixels
-                int midY = (startPoint.y + endPoint.y) / 2 - 10; // Offset by -10 pixels
-                g2d.drawString(String.valueOf(edge.weight), midX, midY);
+        int[] links = visibleLinks();
+        for (int i = 0; i < links.length; i += 2) {
+            int id = links[i];
+            int edge = links[i + 1];
+            int x1 = screenX(id);
+            int y1 = screenY(id);
+            int x2 = screenX(topology.target(edge));
+            int y2 = screenY(topology.target(edge));
+            if (!clipToView(x1, y1, x2, y2)) continue;
+            if (clipped[2] == x2 && clipped[3] == y2) {
+                drawArrow(g2d, clipped[0], clipped[1], x2, y2); // Same direction, so the head is unchanged
+            } else {
+                g2d.drawLine(clipped[0], clipped[1], clipped[2], clipped[3]);
+            }
+
+            // Draw edge weight
+            int midX = (x1 + x2) / 2 + 10; // Offset by 10 pixels
+            int midY = (y1 + y2) / 2 - 10; // Offset by -10 pixels
+            if (labels && midX > -40 && midY > -20 && midX < getWidth() && midY < getHeight() + 20) {
+                g2d.drawString(String.valueOf(topology.weight(edge)), midX, midY);
             }
         }
     }
 
+    // One dot per occupied CLUSTER_CELL square, sized by how many nodes it holds, and one line per
+    // pair of linked cells. An off-screen end of a link counts as the cell where the link enters
+    // the view, so links leaving the view in different directions stay apart.
+    private void renderClustered(Graphics2D g2d, int[] visible) {
+        int columns = getWidth() / CLUSTER_CELL + 1;
+        int rows = getHeight() / CLUSTER_CELL + 1;
+        int[] counts = new int[columns * rows];
+        for (int id : visible) {
+            int cell = cellOf(id, columns, rows);
+            if (cell >= 0) counts[cell]++;
+        }
+
+        g2d.setColor(Color.LIGHT_GRAY);
+        long[] drawn = new long[1024]; // Open-addressing set of drawn cell pairs, 0 = empty
+        int drawnCount = 0;
+        int[] links = visibleLinks();
+        for (int i = 0; i < links.length; i += 2) {
+            int id = links[i];
+            int target = topology.target(links[i + 1]);
+            if (!clipToView(screenX(id), screenY(id), screenX(target), screenY(target))) continue;
+            int from = cellOf(id, columns, rows);
+            int to = cellOf(target, columns, rows);
+            if (from < 0) from = cellAt(clipped[0], clipped[1], columns, rows);
+            if (to < 0) to = cellAt(clipped[2], clipped[3], columns, rows);
+            if (from == to) continue;
+
+            long key = ((long) (from + 1) << 32) | (to + 1 & 0xFFFFFFFFL);
+            int mask = drawn.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (drawn[slot] != 0 && drawn[slot] != key) slot = (slot + 1) & mask;
+            if (drawn[slot] == key) continue;
+            drawn[slot] = key;
+            if (++drawnCount * 2 > drawn.length) drawn = rehash(drawn);
+            g2d.drawLine(clipped[0], clipped[1], clipped[2], clipped[3]);
+        }
+
+        g2d.setColor(new Color(0, 139, 139));
+        for (int cell = 0; cell < counts.length; cell++) {
+            if (counts[cell] == 0) continue;
+            int size = Math.min(CLUSTER_CELL + 4, 2 + (int) Math.round(Math.log(counts[cell]) * 1.5));
+            int x = (cell % columns) * CLUSTER_CELL + CLUSTER_CELL / 2;
+            int y = (cell / columns) * CLUSTER_CELL + CLUSTER_CELL / 2;
+            g2d.fillOval(x - size / 2, y - size / 2, size, size);
+        }
+    }
+
+    private void paintHover(Graphics2D g2d, int id) {
+        int x = screenX(id);
+        int y = screenY(id);
+        String name = topology.nameOf(id);
+        if (bufferDetailed) {
+            g2d.setColor(Color.ORANGE);
+            g2d.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+            g2d.setColor(Color.BLACK);
+            g2d.drawOval(x - radius, y - radius, 2 * radius, 2 * radius);
+            g2d.drawString(name, x - radius / 2, y + radius + 10);
+        } else {
+            FontMetrics metrics = g2d.getFontMetrics(getFont());
+            g2d.setColor(Color.ORANGE);
+            g2d.fillOval(x - 4, y - 4, 8, 8);
+            g2d.setColor(new Color(255, 255, 255, 220));
+            g2d.fillRect(x + 6, y - metrics.getAscent(), metrics.stringWidth(name) + 4, metrics.getHeight());
+            g2d.setColor(Color.BLACK);
+            g2d.drawString(name, x + 8, y);
+        }
+    }
+
+    // Screen area the hover highlight of a node can touch
+    private Rectangle hoverBounds(int id) {
+        int x = screenX(id);
+        int y = screenY(id);
+        FontMetrics metrics = getFontMetrics(getFont());
+        int labelWidth = metrics.stringWidth(topology.nameOf(id));
+        if (bufferDetailed) {
+            return new Rectangle(x - radius - 1, y - radius - 1,
+                    Math.max(2 * radius + 2, radius / 2 + 1 + labelWidth + 1), 2 * radius + 12 + metrics.getDescent());
+        }
+        return new Rectangle(x - 5, y - metrics.getAscent() - 5, labelWidth + 20, metrics.getHeight() + 10);
+    }
+
+    private void updateHover(Point mouse) {
+        if (index == null || dragStart != null || buffer == null) return;
+        updateView();
+        double scale = viewScale;
+        float reach = (float) ((bufferDetailed ? radius : HOVER_DISTANCE) / scale);
+        float worldX = (float) ((mouse.x - getWidth() / 2.0 - panX) / scale);
+        float worldY = (float) ((mouse.y - getHeight() / 2.0 - panY) / scale);
+        int node = index.nearest(worldX, worldY, reach);
+        if (node == hoveredNode) return;
+        if (hoveredNode >= 0) repaint(hoverBounds(hoveredNode));
+        hoveredNode = node;
+        if (node >= 0) repaint(hoverBounds(node));
+    }
+
+    private void topologyChanged() {
+        if (!changed) {
+            changed = true;
+            repaint();
+        }
+    }
+
+    // Nodes whose circle of the given pixel radius may overlap the panel
+    private int[] visibleNodes(int margin) {
+        return visibleNodes(margin, 0);
+    }
+
+    // Same, with the panel also grown by a distance in world coordinates
+    private int[] visibleNodes(int margin, float reach) {
+        double scale = scale();
+        float x0 = (float) ((-margin - getWidth() / 2.0 - panX) / scale) - reach;
+        float y0 = (float) ((-margin - getHeight() / 2.0 - panY) / scale) - reach;
+        float x1 = (float) ((getWidth() + margin - getWidth() / 2.0 - panX) / scale) + reach;
+        float y1 = (float) ((getHeight() + margin - getHeight() / 2.0 - panY) / scale) + reach;
+        int[] visible = index.query(x0, y0, x1, y1);
+        Arrays.sort(visible); // Draw in node order, like the full scan did
+        return visible;
+    }
+
+    // Cluster cell of a node, or -1 when it is off screen
+    private int cellOf(int id, int columns, int rows) {
+        int column = Math.floorDiv(screenX(id), CLUSTER_CELL);
+        int row = Math.floorDiv(screenY(id), CLUSTER_CELL);
+        return column < 0 || row < 0 || column >= columns || row >= rows ? -1 : column + row * columns;
+    }
+
+    // Cluster cell nearest to a screen point, for clipped link ends just outside the panel
+    private int cellAt(int x, int y, int columns, int rows) {
+        int column = Math.max(0, Math.min(columns - 1, Math.floorDiv(x, CLUSTER_CELL)));
+        int row = Math.max(0, Math.min(rows - 1, Math.floorDiv(y, CLUSTER_CELL)));
+        return column + row * columns;
+    }
+
+    // Liang-Barsky clipping of a segment to the panel grown by the node radius. Returns false when
+    // the segment misses it, otherwise stores the visible part in clipped; drawing only that part
+    // keeps long links of a zoomed-in view cheap.
+    private boolean clipToView(int x1, int y1, int x2, int y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {x1 + radius, getWidth() + radius - x1, y1 + radius, getHeight() + radius - y1};
+        double enter = 0;
+        double exit = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) return false; // Parallel to this side and outside it
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) enter = Math.max(enter, t);
+                else exit = Math.min(exit, t);
+            }
+        }
+        if (enter > exit) return false;
+        clipped[0] = enter == 0 ? x1 : (int) Math.round(x1 + enter * dx);
+        clipped[1] = enter == 0 ? y1 : (int) Math.round(y1 + enter * dy);
+        clipped[2] = exit == 1 ? x2 : (int) Math.round(x1 + exit * dx);
+        clipped[3] = exit == 1 ? y2 : (int) Math.round(y1 + exit * dy);
+        return true;
+    }
+
+    private static long[] rehash(long[] set) {
+        long[] larger = new long[set.length * 2];
+        int mask = larger.length - 1;
+        for (long key : set) {
+            if (key == 0) continue;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (larger[slot] != 0) slot = (slot + 1) & mask;
+            larger[slot] = key;
+        }
+        return larger;
+    }
+
+    private double scale() {
+        return zoom * Math.min(getWidth(), getHeight()) / 3.0;
+    }
+
+    private void updateView() {
+        viewScale = scale();
+        originX = getWidth() / 2.0 + panX;
+        originY = getHeight() / 2.0 + panY;
+    }
+
+    // Screen coordinates are clamped so far-off nodes at high zoom cannot overflow an int
+    private int screenX(int id) {
+        return (int) Math.max(-1e6, Math.min(1e6, originX + xs[id] * viewScale));
+    }
+
+    private int screenY(int id) {
+        return (int) Math.max(-1e6, Math.min(1e6, originY + ys[id] * viewScale));
+    }
+
     private void drawArrow(Graphics2D g2d, int x1, int y1, int x2, int y2) {
         int arrowSize = 10;
         double angle = Math.atan2(y2 - y1, x2 - x1);
@@ -114,4 +623,4 @@ public class NetworkTopologyVisualizer extends JPanel {
         g2d.drawLine(x2, y2, xArrow1, yArrow1);
         g2d.drawLine(x2, y2, xArrow2, yArrow2);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,254 @@
+package networktopology;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+// Level-synchronous BFS over a CompiledGraph that expands large levels across worker threads.
+// Results match a sequential queue-based BFS exactly, including the order inside each depth:
+// a node belongs to the frontier edge that reaches it first in (frontier index, edge index) order.
+//
+// Small levels are expanded sequentially. Large levels run top-down, where frontier edges
+// compete for each new node with an atomic min on its position. A level that would touch more
+// edges than the unvisited part of the graph switches to bottom-up, where every unvisited node
+// scans its incoming edges for frontier parents (direction-optimizing BFS).
+public class ParallelBfs {
+    static final int PARALLEL_THRESHOLD = 1 << 14; // Frontier edges below which a level runs sequentially
+    static final int BOTTOM_UP_ALPHA = 14;         // Go bottom-up when frontier edges > unvisited edges / alpha
+    static final int TOP_DOWN_BETA = 24;           // Return top-down when frontier < nodes / beta
+
+    private final CompiledGraph graph;
+    private final int chunks;
+
+    public ParallelBfs(CompiledGraph graph) {
+        this.graph = graph;
+        this.chunks = Runtime.getRuntime().availableProcessors() * 4;
+    }
+
+    // Receives every depth level as soon as it is complete; returning false stops the search there
+    public interface LevelListener {
+        boolean levelDiscovered(int depth, int[] nodes);
+    }
+
+    // Node ids within depthLimit hops of start, in sequential BFS order
+    public int[] discover(int start, int depthLimit) {
+        return discover(start, depthLimit, null);
+    }
+
+    // Same, handing each level to the listener (on the calling thread) before expanding it
+    public int[] discover(int start, int depthLimit, LevelListener listener) {
+        if (depthLimit < 0) return new int[0];
+        long started = Metrics.ENABLED ? System.nanoTime() : 0;
+
+        int nodeCount = graph.nodeCount();
+        AtomicLongArray visited = new AtomicLongArray((nodeCount + 63) >>> 6);
+        AtomicLongArray claims = null; // Lazily allocated for parallel top-down levels
+        int[] frontierIndex = null;    // Lazily allocated for bottom-up levels
+
+        int[] result = new int[16];
+        int resultSize = 0;
+        int[] frontier = {start};
+        markVisited(visited, start);
+        long unvisitedEdges = graph.edgeCount() - degree(start);
+        boolean bottomUp = false;
+
+        for (int depth = 0; frontier.length > 0; depth++) {
+            if (Metrics.ENABLED) Metrics.DISCOVERY_FRONTIER.record(frontier.length);
+            if (resultSize + frontier.length > result.length) {
+                result = Arrays.copyOf(result, Math.max(result.length * 2, resultSize + frontier.length));
+            }
+            System.arraycopy(frontier, 0, result, resultSize, frontier.length);
+            resultSize += frontier.length;
+            if (listener != null && !listener.levelDiscovered(depth, frontier)) break;
+            if (depth == depthLimit) break; // The last level is reported but not expanded
+
+            long[] prefix = new long[frontier.length + 1];
+            for (int i = 0; i < frontier.length; i++) {
+                prefix[i + 1] = prefix[i] + degree(frontier[i]);
+            }
+            long frontierEdges = prefix[frontier.length];
+
+            if (bottomUp) {
+                bottomUp = frontier.length >= nodeCount / TOP_DOWN_BETA;
+            } else {
+                bottomUp = frontierEdges > unvisitedEdges / BOTTOM_UP_ALPHA && frontierEdges >= PARALLEL_THRESHOLD;
+            }
+
+            int[] next;
+            if (frontierEdges < PARALLEL_THRESHOLD && !bottomUp) {
+                next = expandSequential(frontier, visited);
+            } else if (bottomUp) {
+                if (frontierIndex == null) {
+                    frontierIndex = new int[nodeCount];
+                    Arrays.fill(frontierIndex, -1);
+                }
+                next = expandBottomUp(frontier, prefix, frontierIndex, visited);
+                if (Metrics.ENABLED) Metrics.DISCOVERY_BOTTOM_UP_LEVELS.increment();
+            } else {
+                if (claims == null) {
+                    claims = new AtomicLongArray(nodeCount);
+                    for (int i = 0; i < nodeCount; i++) claims.set(i, Long.MAX_VALUE);
+                }
+                next = expandTopDown(frontier, prefix, claims, visited);
+            }
+
+            for (int node : next) {
+                unvisitedEdges -= degree(node);
+            }
+            frontier = next;
+        }
+        if (Metrics.ENABLED) {
+            Metrics.DISCOVERY_DEVICES.add(resultSize);
+            Metrics.DISCOVERY_LATENCY.record(System.nanoTime() - started);
+        }
+        return Arrays.copyOf(result, resultSize);
+    }
+
+    private int[] expandSequential(int[] frontier, AtomicLongArray visited) {
+        int[] next = new int[16];
+        int size = 0;
+        for (int current : frontier) {
+            for (int edge = graph.firstEdge(current), last = graph.lastEdge(current); edge < last; edge++) {
+                int node = graph.target(edge);
+                if (!isVisited(visited, node)) {
+                    markVisited(visited, node);
+                    if (size == next.length) next = Arrays.copyOf(next, size * 2);
+                    next[size++] = node;
+                }
+            }
+        }
+        return Arrays.copyOf(next, size);
+    }
+
+    private int[] expandTopDown(int[] frontier, long[] prefix, AtomicLongArray claims, AtomicLongArray visited) {
+        int chunkCount = Math.min(chunks, frontier.length);
+
+        // Pass 1: every frontier edge bids its position for unvisited targets; the smallest wins
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            int from = chunkStart(chunk, chunkCount, frontier.length);
+            int to = chunkStart(chunk + 1, chunkCount, frontier.length);
+            for (int i = from; i < to; i++) {
+                int current = frontier[i];
+                int first = graph.firstEdge(current);
+                for (int edge = first, last = graph.lastEdge(current); edge < last; edge++) {
+                    int node = graph.target(edge);
+                    if (isVisited(visited, node)) continue;
+                    long position = prefix[i] + (edge - first);
+                    long claim = claims.get(node);
+                    while (position < claim && !claims.compareAndSet(node, claim, position)) {
+                        claim = claims.get(node);
+                    }
+                }
+            }
+        });
+
+        // Pass 2: each edge that won keeps its target; chunks stay in frontier order
+        int[][] parts = new int[chunkCount][];
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            int from = chunkStart(chunk, chunkCount, frontier.length);
+            int to = chunkStart(chunk + 1, chunkCount, frontier.length);
+            int[] part = new int[16];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                int current = frontier[i];
+                int first = graph.firstEdge(current);
+                for (int edge = first, last = graph.lastEdge(current); edge < last; edge++) {
+                    int node = graph.target(edge);
+                    if (claims.get(node) == prefix[i] + (edge - first)) {
+                        if (size == part.length) part = Arrays.copyOf(part, size * 2);
+                        part[size++] = node;
+                    }
+                }
+            }
+            parts[chunk] = Arrays.copyOf(part, size);
+        });
+
+        int[] next = concat(parts);
+        for (int node : next) {
+            markVisited(visited, node);
+            claims.set(node, Long.MAX_VALUE);
+        }
+        return next;
+    }
+
+    private int[] expandBottomUp(int[] frontier, long[] prefix, int[] frontierIndex, AtomicLongArray visited) {
+        for (int i = 0; i < frontier.length; i++) {
+            frontierIndex[frontier[i]] = i;
+        }
+
+        // Every unvisited node finds the earliest frontier edge pointing at it
+        int nodeCount = graph.nodeCount();
+        int chunkCount = Math.min(chunks, Math.max(nodeCount, 1));
+        long[][] parts = new long[chunkCount][];
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            int from = chunkStart(chunk, chunkCount, nodeCount);
+            int to = chunkStart(chunk + 1, chunkCount, nodeCount);
+            long[] part = new long[16];
+            int size = 0;
+            for (int node = from; node < to; node++) {
+                if (isVisited(visited, node)) continue;
+                long best = Long.MAX_VALUE;
+                for (int in = graph.firstReverseEdge(node), last = graph.lastReverseEdge(node); in < last; in++) {
+                    int parent = graph.reverseSource(in);
+                    int index = frontierIndex[parent];
+                    if (index < 0) continue;
+                    best = Math.min(best, prefix[index] + (graph.forwardEdge(in) - graph.firstEdge(parent)));
+                }
+                if (best != Long.MAX_VALUE) {
+                    if (size == part.length) part = Arrays.copyOf(part, size * 2);
+                    part[size++] = (best << 32) | node; // Positions are edge offsets, so they fit in 31 bits
+                }
+            }
+            parts[chunk] = Arrays.copyOf(part, size);
+        });
+
+        int total = 0;
+        for (long[] part : parts) total += part.length;
+        long[] keyed = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, keyed, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.parallelSort(keyed);
+
+        int[] next = new int[total];
+        for (int i = 0; i < total; i++) {
+            next[i] = (int) keyed[i];
+            markVisited(visited, next[i]);
+        }
+        for (int node : frontier) {
+            frontierIndex[node] = -1;
+        }
+        return next;
+    }
+
+    private int degree(int node) {
+        return graph.lastEdge(node) - graph.firstEdge(node);
+    }
+
+    private static int chunkStart(int chunk, int chunkCount, int length) {
+        return (int) ((long) chunk * length / chunkCount);
+    }
+
+    private static int[] concat(int[][] parts) {
+        int total = 0;
+        for (int[] part : parts) total += part.length;
+        int[] all = new int[total];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        return all;
+    }
+
+    private static boolean isVisited(AtomicLongArray visited, int node) {
+        return (visited.get(node >>> 6) & (1L << node)) != 0;
+    }
+
+    private static void markVisited(AtomicLongArray visited, int node) {
+        long mask = 1L << node;
+        visited.accumulateAndGet(node >>> 6, mask, (bits, bit) -> bits | bit);
+    }
+}
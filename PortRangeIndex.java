@@ -0,0 +1,65 @@
+package networktopology;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+// Interval index answering "first rule whose port range contains this port".
+// Range boundaries split the port space into elementary segments, each precomputed with the
+// lowest rule index covering it, so a lookup is one binary search.
+public class PortRangeIndex {
+    private final long[] bounds;   // Segment i covers ports [bounds[i], bounds[i + 1])
+    private final int[] firstRule; // Lowest covering rule per segment, or -1
+
+    // starts/ends are inclusive ranges; rules must be given in ascending rule order
+    public PortRangeIndex(int[] starts, int[] ends, int[] rules, int count) {
+        TreeSet<Long> cuts = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            cuts.add((long) starts[i]);
+            cuts.add((long) ends[i] + 1);
+        }
+        bounds = new long[cuts.size()];
+        int n = 0;
+        for (long cut : cuts) bounds[n++] = cut;
+
+        firstRule = new int[Math.max(n - 1, 0)];
+        Arrays.fill(firstRule, -1);
+
+        // Paint segments in rule order; `next` skips over segments that already have a rule
+        int[] next = new int[firstRule.length + 1];
+        for (int i = 0; i < next.length; i++) next[i] = i;
+        for (int i = 0; i < count; i++) {
+            int from = Arrays.binarySearch(bounds, starts[i]);
+            int to = Arrays.binarySearch(bounds, (long) ends[i] + 1);
+            for (int segment = find(next, from); segment < to; segment = find(next, segment)) {
+                firstRule[segment] = rules[i];
+                next[segment] = segment + 1;
+            }
+        }
+    }
+
+    // Lowest rule index whose range contains port, or -1
+    public int match(int port) {
+        int low = 0;
+        int high = bounds.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (bounds[middle] <= port) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high < 0 || high >= firstRule.length ? -1 : firstRule[high];
+    }
+
+    private static int find(int[] next, int segment) {
+        int root = segment;
+        while (next[root] != root) root = next[root];
+        while (next[segment] != root) {
+            int parent = next[segment];
+            next[segment] = root;
+            segment = parent;
+        }
+        return root;
+    }
+}
@@ -0,0 +1,56 @@
+package networktopology;
+
+import java.util.Arrays;
+
+// Binary trie over left-aligned address bits, stored in primitive arrays.
+// Each node may carry a value slot; walking an address visits every stored prefix
+// that covers it, so a lookup costs at most address-width steps regardless of rule count.
+public class PrefixTrie {
+    public static final int ROOT = 0;
+
+    private int[] children = new int[2 * 16]; // children[2 * node + bit], 0 = absent
+    private int[] values = new int[16];       // Value slot per node, -1 = none
+    private int nodeCount = 1;
+
+    public PrefixTrie() {
+        Arrays.fill(values, -1);
+    }
+
+    // Node for the given prefix, created along with any missing ancestors
+    public int insert(long high, long low, int length) {
+        int node = ROOT;
+        for (int i = 0; i < length; i++) {
+            int bit = IpAddress.bit(high, low, i);
+            int child = children[2 * node + bit];
+            if (child == 0) {
+                child = newNode();
+                children[2 * node + bit] = child;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    // Child of node along bit, or -1 if there is none
+    public int child(int node, int bit) {
+        int child = children[2 * node + bit];
+        return child == 0 ? -1 : child;
+    }
+
+    public int value(int node) {
+        return values[node];
+    }
+
+    public void setValue(int node, int value) {
+        values[node] = value;
+    }
+
+    private int newNode() {
+        if (nodeCount == values.length) {
+            values = Arrays.copyOf(values, nodeCount * 2);
+            Arrays.fill(values, nodeCount, values.length, -1);
+            children = Arrays.copyOf(children, nodeCount * 4);
+        }
+        return nodeCount++;
+    }
+}
@@ -0,0 +1,204 @@
+package networktopology;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Headless access to a shared Graph and FirewallManager over a line protocol.
+// Each request is one line of whitespace-separated tokens and gets exactly one response line,
+// "OK ..." or "ERR message", in request order:
+//   ADD-EDGE source destination weight                  -> OK
+//   SHORTEST-PATH start end [DIJKSTRA|A_STAR|BIDIRECTIONAL] -> OK weight device... | OK NONE
+//   DISCOVER start depth                                -> OK count device...
+//   BOTTLENECK threshold [limit]                        -> OK count source>destination:weight...
+//   ADD-RULE source destination port[-portEnd] protocol ALLOW|BLOCK -> OK
+//   FIREWALL-VALIDATE source destination port protocol  -> OK Allowed | OK Blocked
+//   METRICS                                             -> OK {json}
+//   PING -> OK PONG, QUIT closes the connection
+// Device names therefore cannot contain whitespace.
+//
+// The build targets Java 17, which has no virtual threads, so connections are served by a fixed
+// pool of WORKERS threads instead of one thread each. The accept loop only takes a connection
+// when a worker is free; further clients wait in the listen backlog (ACCEPT_BACKLOG), which the
+// OS bounds, and a connection idle for IDLE_TIMEOUT_MILLIS is closed so it cannot pin a worker.
+// Thread count therefore stays fixed however many clients connect. A connection may pipeline
+// requests; they are executed in arrival order, and concurrency comes from serving connections
+// in parallel. The graph should be a ConcurrentGraph, since connections touch it at once.
+public class QueryServer implements Closeable {
+    public static final int DEFAULT_PORT = 7070;
+    public static final int WORKERS = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+    static final int ACCEPT_BACKLOG = 256;
+    static final int IDLE_TIMEOUT_MILLIS = 60_000;
+
+    private final Graph graph;
+    private final FirewallManager firewall;
+    private final ExecutorService executor;
+    private final Semaphore freeWorkers = new Semaphore(WORKERS);
+    private volatile ServerSocket serverSocket;
+
+    public QueryServer(Graph graph, FirewallManager firewall) {
+        this.graph = graph;
+        this.firewall = firewall;
+        this.executor = newRequestExecutor();
+    }
+
+    // Accept connections on the loopback interface until close() is called
+    public void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, ACCEPT_BACKLOG, InetAddress.getLoopbackAddress())) {
+            serverSocket = server;
+            System.out.println("Query server listening on " + server.getLocalSocketAddress());
+            while (!server.isClosed()) {
+                try {
+                    if (!freeWorkers.tryAcquire(100, TimeUnit.MILLISECONDS)) continue; // All busy; re-check for close()
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                Socket socket;
+                try {
+                    socket = server.accept();
+                    socket.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+                } catch (IOException e) {
+                    freeWorkers.release();
+                    if (server.isClosed()) break;
+                    throw e;
+                }
+                executor.execute(() -> {
+                    try (Socket connection = socket) {
+                        serve(connection.getInputStream(), connection.getOutputStream());
+                    } catch (IOException e) {
+                        // Client went away or stayed idle too long; nothing to report back to
+                    } finally {
+                        freeWorkers.release();
+                    }
+                });
+            }
+        }
+    }
+
+    // Answer requests read from in until end of input or QUIT (used for sockets and stdin/stdout).
+    // Requests run one after another, so a pipelined query always sees the edges and rules added
+    // before it; responses are flushed once no further request is already waiting to be read.
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String request = line.trim();
+            if (request.isEmpty()) continue;
+            if (request.equalsIgnoreCase("QUIT")) break;
+
+            writer.write(handle(request));
+            writer.write('\n');
+            if (!reader.ready()) writer.flush(); // Nothing else pending
+        }
+        writer.flush();
+    }
+
+    // Execute one request line and return the response line
+    public String handle(String request) {
+        String[] tokens = request.trim().split("\\s+");
+        try {
+            switch (tokens[0].toUpperCase(Locale.ROOT)) {
+                case "ADD-EDGE":
+                    arguments(tokens, 3, 3);
+                    graph.addEdge(tokens[1], tokens[2], Integer.parseInt(tokens[3]));
+                    return "OK";
+
+                case "SHORTEST-PATH": {
+                    arguments(tokens, 2, 3);
+                    SearchMode mode = tokens.length > 3 ? searchMode(tokens[3]) : SearchMode.DIJKSTRA;
+                    Route route = graph.route(tokens[1], tokens[2], mode);
+                    if (route == null) return "OK NONE";
+                    return "OK " + route.totalWeight + " " + String.join(" ", route.path);
+                }
+
+                case "DISCOVER": {
+                    arguments(tokens, 2, 2);
+                    List<String> devices = graph.discoverDevices(tokens[1], Integer.parseInt(tokens[2]));
+                    return devices.isEmpty() ? "OK 0" : "OK " + devices.size() + " " + String.join(" ", devices);
+                }
+
+                case "BOTTLENECK": {
+                    arguments(tokens, 1, 2);
+                    long limit = tokens.length > 2 ? Long.parseLong(tokens[2]) : Long.MAX_VALUE;
+                    List<String> links = graph.findBottlenecks(Integer.parseInt(tokens[1])).limit(limit)
+                            .map(link -> link.source + ">" + link.destination + ":" + link.weight)
+                            .collect(Collectors.toList());
+                    return links.isEmpty() ? "OK 0" : "OK " + links.size() + " " + String.join(" ", links);
+                }
+
+                case "ADD-RULE": {
+                    arguments(tokens, 5, 5);
+                    String action = tokens[5].toUpperCase(Locale.ROOT);
+                    if (!action.equals("ALLOW") && !action.equals("BLOCK")) return "ERR action must be ALLOW or BLOCK";
+                    String[] ports = tokens[3].split("-", 2);
+                    int port = Integer.parseInt(ports[0]);
+                    int portEnd = ports.length > 1 ? Integer.parseInt(ports[1]) : port;
+                    firewall.addRule(new FirewallRule(tokens[1], tokens[2], port, portEnd, tokens[4], action));
+                    return "OK";
+                }
+
+                case "FIREWALL-VALIDATE":
+                    arguments(tokens, 4, 4);
+                    return "OK " + firewall.validateTraffic(tokens[1], tokens[2], Integer.parseInt(tokens[3]), tokens[4]);
+
+                case "METRICS":
+                    return "OK " + Metrics.snapshotJson();
+
+                case "PING":
+                    return "OK PONG";
+
+                default:
+                    return "ERR unknown command " + tokens[0];
+            }
+        } catch (NumberFormatException e) {
+            return "ERR invalid number: " + e.getMessage();
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        } catch (RuntimeException e) {
+            return "ERR " + e;
+        }
+    }
+
+    // Stop accepting connections and let running requests finish
+    @Override
+    public void close() throws IOException {
+        ServerSocket server = serverSocket;
+        if (server != null) server.close();
+        executor.shutdown();
+    }
+
+    private static void arguments(String[] tokens, int min, int max) {
+        int count = tokens.length - 1;
+        if (count < min || count > max) {
+            throw new IllegalArgumentException(tokens[0].toUpperCase(Locale.ROOT) + " expects "
+                    + (min == max ? String.valueOf(min) : min + " to " + max) + " arguments");
+        }
+    }
+
+    private static SearchMode searchMode(String token) {
+        for (SearchMode mode : SearchMode.values()) {
+            if (mode.name().equalsIgnoreCase(token)) return mode;
+        }
+        throw new IllegalArgumentException("unknown search mode " + token);
+    }
+
+    // Fixed pool of daemon threads, one per connection being served
+    static ExecutorService newRequestExecutor() {
+        return Executors.newFixedThreadPool(WORKERS, task -> {
+            Thread thread = new Thread(task, "query-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
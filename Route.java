@@ -0,0 +1,18 @@
+package networktopology;
+
+import java.util.List;
+
+public class Route {
+    public final List<String> path;
+    public final int totalWeight;
+
+    public Route(List<String> path, int totalWeight) {
+        this.path = path;
+        this.totalWeight = totalWeight;
+    }
+
+    @Override
+    public String toString() {
+        return "Route [Path: " + path + ", Total Weight: " + totalWeight + "]";
+    }
+}
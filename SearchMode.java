@@ -0,0 +1,9 @@
+package networktopology;
+
+// Point-to-point search strategies supported by ShortestPathEngine.
+// All modes return a shortest path; they differ in how much of the graph they settle.
+public enum SearchMode {
+    DIJKSTRA,      // One-directional Dijkstra from the start node
+    A_STAR,        // Dijkstra guided by a DistanceHeuristic towards the end node
+    BIDIRECTIONAL  // Searches from both ends over the reverse index, optionally with a heuristic
+}
@@ -0,0 +1,116 @@
+package networktopology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Multi-source shortest paths: one Dijkstra per source, spread across a ForkJoinPool.
+// Every worker reads the same immutable CompiledGraph and uses its own thread-local engine.
+public class ShortestPathBatch {
+    // All-pairs matrices above this many nodes would need more than 64 MB
+    public static final int MAX_MATRIX_NODES = 4096;
+
+    private final CompiledGraph graph;
+    private final ForkJoinPool pool;
+
+    public ShortestPathBatch(CompiledGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public ShortestPathBatch(CompiledGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    // Shortest-path trees keyed by source, in the order given; unknown sources are skipped
+    public Map<String, ShortestPathTree> solve(Collection<String> sources) {
+        List<Integer> roots = new ArrayList<>();
+        for (String source : sources) {
+            int id = graph.idOf(source);
+            if (id >= 0) roots.add(id);
+        }
+        int[] rootIds = new int[roots.size()];
+        for (int i = 0; i < rootIds.length; i++) {
+            rootIds[i] = roots.get(i);
+        }
+
+        ShortestPathTree[] trees = new ShortestPathTree[rootIds.length];
+        pool.invoke(new SolveTask(rootIds, 0, rootIds.length, (index, root) -> {
+            ShortestPathEngine engine = ShortestPathEngine.forCurrentThread();
+            engine.run(graph, root, -1);
+            int nodeCount = graph.nodeCount();
+            int[] distances = new int[nodeCount];
+            int[] predecessors = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                distances[node] = engine.distance(node);
+                predecessors[node] = engine.predecessor(node);
+            }
+            trees[index] = new ShortestPathTree(graph, root, distances, predecessors);
+        }));
+
+        Map<String, ShortestPathTree> result = new LinkedHashMap<>();
+        for (ShortestPathTree tree : trees) {
+            result.putIfAbsent(tree.root(), tree);
+        }
+        return result;
+    }
+
+    // Distances between every pair of nodes, one row per source computed in parallel
+    public DistanceMatrix allPairs() {
+        int nodeCount = graph.nodeCount();
+        if (nodeCount > MAX_MATRIX_NODES) {
+            throw new IllegalArgumentException("All-pairs matrix limited to " + MAX_MATRIX_NODES
+                    + " nodes, graph has " + nodeCount + "; use solve() for selected sources instead.");
+        }
+        int[] rootIds = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            rootIds[i] = i;
+        }
+
+        int[] distances = new int[nodeCount * nodeCount];
+        pool.invoke(new SolveTask(rootIds, 0, nodeCount, (index, root) -> {
+            ShortestPathEngine engine = ShortestPathEngine.forCurrentThread();
+            engine.run(graph, root, -1);
+            int row = root * nodeCount;
+            for (int node = 0; node < nodeCount; node++) {
+                distances[row + node] = engine.distance(node);
+            }
+        }));
+        return new DistanceMatrix(graph, distances);
+    }
+
+    private interface SourceJob {
+        void solve(int index, int root);
+    }
+
+    // Splits the source range in halves until each task owns a single source
+    private static class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] roots;
+        private final int from;
+        private final int to;
+        private final SourceJob job;
+
+        SolveTask(int[] roots, int from, int to, SourceJob job) {
+            this.roots = roots;
+            this.from = from;
+            this.to = to;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) job.solve(from, roots[from]);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SolveTask(roots, from, middle, job), new SolveTask(roots, middle, to, job));
+        }
+    }
+}
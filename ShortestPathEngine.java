@@ -0,0 +1,262 @@
+package networktopology;
+
+import java.util.Arrays;
+
+// Allocation-free Dijkstra over a CompiledGraph.
+// Each thread owns one engine whose int[] scratch buffers are reused across queries.
+// Buffers are reset by bumping a generation stamp instead of clearing O(V) arrays.
+public class ShortestPathEngine {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<ShortestPathEngine> LOCAL = ThreadLocal.withInitial(ShortestPathEngine::new);
+
+    private final Scratch forward = new Scratch();
+    private final Scratch backward = new Scratch(); // Only used by bidirectional searches
+
+    private int meetingNode = -1; // Node where the two halves of the last bidirectional search join
+    private int settledCount;
+    private int relaxedCount;
+
+    public static ShortestPathEngine forCurrentThread() {
+        return LOCAL.get();
+    }
+
+    // Run Dijkstra from source, stopping once target is settled (pass -1 to build the full tree).
+    // Returns the distance to target, or UNREACHABLE.
+    public int run(CompiledGraph graph, int source, int target) {
+        return runDirected(graph, source, target, false, null);
+    }
+
+    // Dijkstra over incoming edges: afterwards distance(node) is d(node, source)
+    // and predecessor(node) is the next hop from node towards source.
+    public int runReverse(CompiledGraph graph, int source, int target) {
+        return runDirected(graph, source, target, true, null);
+    }
+
+    // Point-to-point query in the given mode; the heuristic is optional for A_STAR and BIDIRECTIONAL
+    public int search(CompiledGraph graph, int source, int target, SearchMode mode, DistanceHeuristic heuristic) {
+        long started = Metrics.ENABLED ? System.nanoTime() : 0;
+        int distance;
+        switch (mode) {
+            case A_STAR:
+                distance = runDirected(graph, source, target, false, heuristic);
+                break;
+            case BIDIRECTIONAL:
+                distance = runBidirectional(graph, source, target, heuristic);
+                break;
+            default:
+                distance = run(graph, source, target);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.PATH_LATENCY.record(System.nanoTime() - started);
+            Metrics.PATH_SETTLED.record(settledCount);
+            Metrics.PATH_RELAXED.add(relaxedCount);
+            if (distance == UNREACHABLE) Metrics.PATH_UNREACHABLE.increment();
+        }
+        return distance;
+    }
+
+    private int runDirected(CompiledGraph graph, int source, int target, boolean reverse, DistanceHeuristic heuristic) {
+        forward.reset(graph.nodeCount());
+        meetingNode = -1;
+        settledCount = 0;
+        relaxedCount = 0;
+
+        IndexedMinHeap heap = forward.heap;
+        forward.touch(source, 0, -1);
+        heap.insertOrDecrease(source, estimate(heuristic, source, target));
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settledCount++;
+            if (current == target) break;
+
+            int distance = forward.distances[current];
+            int first = reverse ? graph.firstReverseEdge(current) : graph.firstEdge(current);
+            int last = reverse ? graph.lastReverseEdge(current) : graph.lastEdge(current);
+            for (int edge = first; edge < last; edge++) {
+                int next = reverse ? graph.reverseSource(edge) : graph.target(edge);
+                int newDist = distance + graph.weight(reverse ? graph.forwardEdge(edge) : edge);
+                relaxedCount++;
+                if (!forward.reached(next) || newDist < forward.distances[next]) {
+                    forward.touch(next, newDist, current);
+                    heap.insertOrDecrease(next, (long) newDist + estimate(heuristic, next, target));
+                }
+            }
+        }
+        heap.clear();
+
+        return target < 0 ? UNREACHABLE : distance(target);
+    }
+
+    // Bidirectional Dijkstra. With a heuristic, both sides use the average potential
+    // p(v) = (h(v, t) - h(s, v)) / 2 so their reduced edge costs stay consistent; keys are
+    // kept doubled to stay in integers. The search stops once topForward + topBackward >= 2 * best.
+    private int runBidirectional(CompiledGraph graph, int source, int target, DistanceHeuristic heuristic) {
+        forward.reset(graph.nodeCount());
+        backward.reset(graph.nodeCount());
+        settledCount = 0;
+        relaxedCount = 0;
+        meetingNode = -1;
+
+        long best = Long.MAX_VALUE;
+        if (source == target) {
+            forward.touch(source, 0, -1);
+            meetingNode = source;
+            return 0;
+        }
+
+        forward.touch(source, 0, -1);
+        forward.heap.insertOrDecrease(source, potential(heuristic, source, source, target));
+        backward.touch(target, 0, -1);
+        backward.heap.insertOrDecrease(target, -potential(heuristic, target, source, target));
+
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            long topForward = forward.heap.peekKey();
+            long topBackward = backward.heap.peekKey();
+            if (best != Long.MAX_VALUE && topForward + topBackward >= 2 * best) break;
+
+            boolean expandForward = topForward <= topBackward;
+            Scratch side = expandForward ? forward : backward;
+            Scratch other = expandForward ? backward : forward;
+            int current = side.heap.poll();
+            settledCount++;
+
+            int distance = side.distances[current];
+            int first = expandForward ? graph.firstEdge(current) : graph.firstReverseEdge(current);
+            int last = expandForward ? graph.lastEdge(current) : graph.lastReverseEdge(current);
+            for (int edge = first; edge < last; edge++) {
+                int next = expandForward ? graph.target(edge) : graph.reverseSource(edge);
+                int newDist = distance + graph.weight(expandForward ? edge : graph.forwardEdge(edge));
+                relaxedCount++;
+                if (!side.reached(next) || newDist < side.distances[next]) {
+                    side.touch(next, newDist, current);
+                    long p = potential(heuristic, next, source, target);
+                    side.heap.insertOrDecrease(next, 2L * newDist + (expandForward ? p : -p));
+                }
+                if (other.reached(next)) {
+                    long candidate = (long) side.distances[next] + other.distances[next];
+                    if (candidate < best) {
+                        best = candidate;
+                        meetingNode = next;
+                    }
+                }
+            }
+        }
+        forward.heap.clear();
+        backward.heap.clear();
+
+        return best == Long.MAX_VALUE ? UNREACHABLE : (int) best;
+    }
+
+    private static long estimate(DistanceHeuristic heuristic, int node, int target) {
+        return heuristic == null || target < 0 ? 0 : heuristic.estimate(node, target);
+    }
+
+    // Doubled forward potential h(v, t) - h(s, v); the backward side uses its negation
+    private static long potential(DistanceHeuristic heuristic, int node, int source, int target) {
+        if (heuristic == null) return 0;
+        return (long) heuristic.estimate(node, target) - heuristic.estimate(source, node);
+    }
+
+    // Results below describe the last search. After a bidirectional search they cover the
+    // forward half only; use path() to get the joined route.
+
+    public boolean reached(int node) {
+        return forward.reached(node);
+    }
+
+    public int distance(int node) {
+        return forward.reached(node) ? forward.distances[node] : UNREACHABLE;
+    }
+
+    public int predecessor(int node) {
+        return forward.reached(node) ? forward.predecessors[node] : -1;
+    }
+
+    // Node ids from the last source to target, or an empty array if target was not reached
+    public int[] path(int target) {
+        if (meetingNode >= 0) {
+            return joinedPath();
+        }
+        if (!forward.reached(target)) return new int[0];
+        int length = 0;
+        for (int at = target; at != -1; at = forward.predecessors[at]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int at = target; at != -1; at = forward.predecessors[at]) {
+            path[--length] = at;
+        }
+        return path;
+    }
+
+    private int[] joinedPath() {
+        int forwardLength = 0;
+        for (int at = meetingNode; at != -1; at = forward.predecessors[at]) {
+            forwardLength++;
+        }
+        int backwardLength = 0;
+        if (backward.reached(meetingNode)) {
+            for (int at = backward.predecessors[meetingNode]; at != -1; at = backward.predecessors[at]) {
+                backwardLength++;
+            }
+        }
+        int[] path = new int[forwardLength + backwardLength];
+        int index = forwardLength;
+        for (int at = meetingNode; at != -1; at = forward.predecessors[at]) {
+            path[--index] = at;
+        }
+        index = forwardLength;
+        if (backward.reached(meetingNode)) {
+            for (int at = backward.predecessors[meetingNode]; at != -1; at = backward.predecessors[at]) {
+                path[index++] = at;
+            }
+        }
+        return path;
+    }
+
+    public int settledCount() {
+        return settledCount;
+    }
+
+    public int relaxedCount() {
+        return relaxedCount;
+    }
+
+    // Distance and predecessor buffers for one search direction
+    private static class Scratch {
+        int[] distances = new int[0];
+        int[] predecessors = new int[0];
+        int[] stamps = new int[0];
+        int generation;
+        final IndexedMinHeap heap = new IndexedMinHeap(16);
+
+        boolean reached(int node) {
+            return stamps[node] == generation;
+        }
+
+        void touch(int node, int distance, int predecessor) {
+            stamps[node] = generation;
+            distances[node] = distance;
+            predecessors[node] = predecessor;
+        }
+
+        void reset(int nodeCount) {
+            if (stamps.length < nodeCount) {
+                int capacity = Math.max(nodeCount, stamps.length * 2);
+                distances = new int[capacity];
+                predecessors = new int[capacity];
+                stamps = new int[capacity];
+                heap.ensureCapacity(capacity);
+                generation = 0;
+            }
+            generation++;
+            if (generation == 0) {
+                // Stamp counter wrapped; clear once so stale stamps cannot alias the new generation
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package networktopology;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Full single-source result: distance and predecessor of every node from one root
+public class ShortestPathTree {
+    private final CompiledGraph graph;
+    private final int root;
+    private final int[] distances;
+    private final int[] predecessors;
+
+    ShortestPathTree(CompiledGraph graph, int root, int[] distances, int[] predecessors) {
+        this.graph = graph;
+        this.root = root;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    public String root() {
+        return graph.nameOf(root);
+    }
+
+    // Distance from the root, or ShortestPathEngine.UNREACHABLE
+    public int distanceTo(String device) {
+        int node = graph.idOf(device);
+        return node < 0 ? ShortestPathEngine.UNREACHABLE : distances[node];
+    }
+
+    public int distanceTo(int node) {
+        return distances[node];
+    }
+
+    public int predecessor(int node) {
+        return predecessors[node];
+    }
+
+    // Path from the root to device, or an empty list if it is unknown or unreachable
+    public List<String> pathTo(String device) {
+        int node = graph.idOf(device);
+        if (node < 0 || distances[node] == ShortestPathEngine.UNREACHABLE) return Collections.emptyList();
+        List<String> path = new ArrayList<>();
+        for (int at = node; at != -1; at = predecessors[at]) {
+            path.add(graph.nameOf(at));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
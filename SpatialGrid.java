@@ -0,0 +1,108 @@
+package networktopology;
+
+import java.util.Arrays;
+
+// Uniform grid over a fixed set of 2D points for rectangle and nearest-point queries.
+// The points are bucketed once into cells of about two points each, stored CSR-style
+// (cellStart/cellNodes), so a query only touches the cells overlapping its area.
+public class SpatialGrid {
+    private final float[] xs;
+    private final float[] ys;
+    private final float minX;
+    private final float minY;
+    private final float cellWidth;
+    private final float cellHeight;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart; // Points of cell c are cellNodes[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellNodes;
+
+    public SpatialGrid(float[] xs, float[] ys, int count) {
+        this.xs = xs;
+        this.ys = ys;
+        float loX = Float.POSITIVE_INFINITY, loY = Float.POSITIVE_INFINITY;
+        float hiX = Float.NEGATIVE_INFINITY, hiY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            loX = Math.min(loX, xs[i]);
+            loY = Math.min(loY, ys[i]);
+            hiX = Math.max(hiX, xs[i]);
+            hiY = Math.max(hiY, ys[i]);
+        }
+        if (count == 0) {
+            loX = loY = 0;
+            hiX = hiY = 1;
+        }
+        int side = (int) Math.max(1, Math.min(4096, Math.sqrt(count / 2.0)));
+        minX = loX;
+        minY = loY;
+        columns = side;
+        rows = side;
+        cellWidth = Math.max((hiX - loX) / columns, 1e-6f);
+        cellHeight = Math.max((hiY - loY) / rows, 1e-6f);
+
+        // Counting sort of the points by cell
+        cellStart = new int[columns * rows + 1];
+        int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = column(xs[i]) + row(ys[i]) * columns;
+            cellStart[cells[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, columns * rows);
+        cellNodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            cellNodes[fill[cells[i]]++] = i;
+        }
+    }
+
+    // Point closest to (x, y) within maxDistance, or -1
+    public int nearest(float x, float y, float maxDistance) {
+        int best = -1;
+        float bestSquared = maxDistance * maxDistance;
+        for (int row = row(y - maxDistance); row <= row(y + maxDistance); row++) {
+            for (int column = column(x - maxDistance); column <= column(x + maxDistance); column++) {
+                int cell = column + row * columns;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int node = cellNodes[i];
+                    float dx = xs[node] - x;
+                    float dy = ys[node] - y;
+                    float squared = dx * dx + dy * dy;
+                    if (squared <= bestSquared) {
+                        best = node;
+                        bestSquared = squared;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Points inside the rectangle, in cell order
+    public int[] query(float x0, float y0, float x1, float y1) {
+        int[] result = new int[16];
+        int size = 0;
+        for (int row = row(y0); row <= row(y1); row++) {
+            for (int column = column(x0); column <= column(x1); column++) {
+                int cell = column + row * columns;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int node = cellNodes[i];
+                    if (xs[node] < x0 || xs[node] > x1 || ys[node] < y0 || ys[node] > y1) continue;
+                    if (size == result.length) result = Arrays.copyOf(result, size * 2);
+                    result[size++] = node;
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Cell coordinates are clamped, so points and queries outside the bounds use the edge cells
+    private int column(float x) {
+        return (int) Math.max(0, Math.min(columns - 1, (x - minX) / cellWidth));
+    }
+
+    private int row(float y) {
+        return (int) Math.max(0, Math.min(rows - 1, (y - minY) / cellHeight));
+    }
+}
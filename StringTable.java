@@ -0,0 +1,87 @@
+package networktopology;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// Thread-safe string table: maps each distinct string (null included) to a dense int id, up to a
+// fixed limit. Lookups of strings already present are lock-free: a writer fills the arrays and
+// then bumps the volatile size, and a reader only trusts ids below the size it read first.
+// Inserting a new string (and growing the arrays) takes the table's monitor. Entries are never removed; once the
+// limit is reached id() returns -1 and the owner starts a fresh table.
+final class StringTable {
+    final int generation;
+    private final int limit;
+    private volatile int[] slots;      // Open-addressing slots holding id + 1, 0 = empty
+    private volatile String[] strings; // String per id
+    private volatile int size;
+
+    StringTable(int generation, int limit) {
+        this.generation = generation;
+        this.limit = limit;
+        slots = new int[64];
+        strings = new String[32];
+    }
+
+    // Id of s, inserting it if new; -1 if the table is full
+    int id(String s) {
+        int hash = mix(Objects.hashCode(s));
+        int n = size;
+        int[] table = slots;
+        String[] values = strings;
+        for (int i = hash & (table.length - 1); ; i = (i + 1) & (table.length - 1)) {
+            int id = table[i] - 1;
+            if (id < 0 || id >= n) break; // Empty, or an entry not yet published to this reader
+            if (Objects.equals(values[id], s)) return id;
+        }
+        return insert(s, hash);
+    }
+
+    // String for id, or null for an id this table never handed out (a torn read of a record being
+    // overwritten, which the caller's sequence re-check rejects)
+    String get(int id) {
+        String[] values = strings;
+        return id >= 0 && id < values.length ? values[id] : null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private synchronized int insert(String s, int hash) {
+        int[] table = slots;
+        int i = hash & (table.length - 1);
+        for (int id; (id = table[i] - 1) >= 0; i = (i + 1) & (table.length - 1)) {
+            if (Objects.equals(strings[id], s)) return id;
+        }
+        int id = size;
+        if (id >= limit) return -1;
+        if (id == strings.length) {
+            strings = Arrays.copyOf(strings, id * 2);
+        }
+        strings[id] = s;
+        if ((id + 1) * 2 > table.length) {
+            table = rehash(table.length * 2);
+            for (i = hash & (table.length - 1); table[i] != 0; i = (i + 1) & (table.length - 1)) {
+            }
+        }
+        table[i] = id + 1;
+        slots = table;
+        size = id + 1; // Publishes the entry written above
+        return id;
+    }
+
+    private int[] rehash(int length) {
+        int[] table = new int[length];
+        String[] values = strings;
+        for (int id = 0; id < size; id++) {
+            int i = mix(Objects.hashCode(values[id])) & (length - 1);
+            while (table[i] != 0) i = (i + 1) & (length - 1);
+            table[i] = id + 1;
+        }
+        return table;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+}
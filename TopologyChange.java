@@ -0,0 +1,30 @@
+package networktopology;
+
+// One logged write to a graph: an added edge, a reweighted link or a bulk load.
+// A snapshot plus the changes logged after it is the current topology, which lets
+// CompiledGraph.withChanges patch a stale snapshot instead of compiling from scratch.
+final class TopologyChange {
+    static final int ADDED = Integer.MIN_VALUE; // oldWeight of an added edge
+
+    final String source;
+    final String destination;
+    final int oldWeight;
+    final int weight;
+    final CompiledGraph bulk; // Edges loaded by addAll, otherwise null
+
+    TopologyChange(String source, String destination, int oldWeight, int weight) {
+        this.source = source;
+        this.destination = destination;
+        this.oldWeight = oldWeight;
+        this.weight = weight;
+        this.bulk = null;
+    }
+
+    TopologyChange(CompiledGraph bulk) {
+        this.source = null;
+        this.destination = null;
+        this.oldWeight = 0;
+        this.weight = 0;
+        this.bulk = bulk;
+    }
+}
@@ -0,0 +1,340 @@
+package networktopology;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Bulk import of link lists into a Graph.
+// Accepted lines are "source,destination[,weight]" (CSV) or "source destination [weight]"
+// (whitespace-separated edge list); a missing weight counts as 1. Blank lines and lines
+// starting with '#' are skipped, as is the first remaining line if it is made only of known
+// column names, such as "source,destination,weight" or "src dst" (a header).
+//
+// The file is cut into fixed-size chunks that are parsed in parallel, each with its own
+// ByteStringInterner and primitive edge arrays. The chunks are then merged in file order
+// into one CompiledGraph, which the graph takes through Graph.addAll: an empty graph adopts it
+// without creating per-edge objects, while importing into a non-empty Graph appends every
+// link to its adjacency lists as an Edge.
+public class TopologyImporter {
+    static final int CHUNK_BYTES = 8 << 20;
+    private static final int MAX_REJECTED_SAMPLES = 100;
+
+    // Header names accepted for each column, compared case-insensitively
+    private static final List<String> SOURCE_COLUMNS = Arrays.asList("source", "src", "from", "device");
+    private static final List<String> DESTINATION_COLUMNS = Arrays.asList("destination", "dest", "dst", "target", "to", "neighbor");
+    private static final List<String> WEIGHT_COLUMNS = Arrays.asList("weight", "latency", "cost");
+
+    private final ForkJoinPool pool;
+
+    public TopologyImporter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public TopologyImporter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Counts and timing of one import
+    public static class ImportReport {
+        public final long lines;
+        public final long links;
+        public final int devices;
+        public final long rejected;
+        public final List<String> rejectedSamples; // "line N: text" for the first rejected lines
+        public final long bytes;
+        public final long elapsedNanos;
+
+        ImportReport(long lines, long links, int devices, long rejected, List<String> rejectedSamples,
+                     long bytes, long elapsedNanos) {
+            this.lines = lines;
+            this.links = links;
+            this.devices = devices;
+            this.rejected = rejected;
+            this.rejectedSamples = rejectedSamples;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double linksPerSecond() {
+            return elapsedNanos == 0 ? 0 : links * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Import [Lines: " + lines + ", Links: " + links + ", Devices: " + devices
+                    + ", Rejected: " + rejected + ", Links/s: " + Math.round(linksPerSecond())
+                    + ", MB/s: " + Math.round(megabytesPerSecond()) + "]";
+        }
+    }
+
+    // Parse the file and add every accepted link to the graph
+    public ImportReport importFile(Path file, Graph graph) throws IOException {
+        long start = System.nanoTime();
+        Chunk[] chunks = parse(file);
+
+        long lines = 0;
+        long rejected = 0;
+        long bytes = 0;
+        List<String> samples = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.samples.size() && samples.size() < MAX_REJECTED_SAMPLES; i++) {
+                samples.add("line " + (lines + chunk.sampleLines.get(i)) + ": " + chunk.samples.get(i));
+            }
+            lines += chunk.lines;
+            rejected += chunk.rejected;
+            bytes += chunk.bytes;
+        }
+
+        CompiledGraph compiled = merge(chunks); // Releases the chunks
+        graph.addAll(compiled);
+        return new ImportReport(lines, compiled.edgeCount(), compiled.nodeCount(), rejected, samples, bytes,
+                System.nanoTime() - start);
+    }
+
+    private Chunk[] parse(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long header = headerCandidate(channel, size);
+            int count = (int) Math.max(1, (size + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            Chunk[] chunks = new Chunk[count];
+            IOException[] failure = new IOException[1];
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(index -> {
+                try {
+                    chunks[index] = Chunk.read(channel, (long) index * CHUNK_BYTES,
+                            Math.min(size, (long) (index + 1) * CHUNK_BYTES), size, header);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            })).join();
+            if (failure[0] != null) throw failure[0];
+            return chunks;
+        }
+    }
+
+    // File offset of the first line that is neither blank nor a comment, the only line that may be
+    // a header; -1 if there is none. Reads from the start of the file until that line is found.
+    private static long headerCandidate(FileChannel channel, long size) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        long offset = 0; // File offset of buffer[0], always the start of a line
+        while (offset < size) {
+            int length = Chunk.readFully(channel, offset, buffer, 0, (int) Math.min(buffer.length, size - offset));
+            int position = 0;
+            while (position < length) {
+                int lineEnd = position;
+                while (lineEnd < length && buffer[lineEnd] != '\n') lineEnd++;
+                if (lineEnd == length && offset + length < size) break; // Line continues past the buffer
+                if (Chunk.isContent(buffer, position, lineEnd)) return offset + position;
+                position = lineEnd + 1;
+            }
+            if (position == 0) buffer = Arrays.copyOf(buffer, buffer.length * 2); // Line longer than the buffer
+            offset += position;
+        }
+        return -1;
+    }
+
+    // Assigns global ids in first-seen order and concatenates the chunks' links in file order.
+    // Names are matched on their raw bytes; a String is only decoded once per distinct device.
+    private CompiledGraph merge(Chunk[] chunks) {
+        ByteStringInterner names = new ByteStringInterner(chunks.length == 0 ? 16 : chunks[0].names.size());
+        int[][] remaps = new int[chunks.length][];
+        int[] edgeOffsets = new int[chunks.length + 1];
+        for (int c = 0; c < chunks.length; c++) {
+            Chunk chunk = chunks[c];
+            int[] remap = new int[chunk.names.size()];
+            for (int local = 0; local < remap.length; local++) {
+                remap[local] = names.id(chunk.names, local);
+            }
+            remaps[c] = remap;
+            long total = (long) edgeOffsets[c] + chunk.edges;
+            if (total > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many links to import at once");
+            edgeOffsets[c + 1] = (int) total;
+        }
+
+        int edgeCount = edgeOffsets[chunks.length];
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        pool.submit(() -> IntStream.range(0, chunks.length).parallel().forEach(c -> {
+            Chunk chunk = chunks[c];
+            int[] remap = remaps[c];
+            int base = edgeOffsets[c];
+            for (int i = 0; i < chunk.edges; i++) {
+                sources[base + i] = remap[chunk.sources[i]];
+                targets[base + i] = remap[chunk.targets[i]];
+            }
+            System.arraycopy(chunk.weights, 0, weights, base, chunk.edges);
+            chunks[c] = null; // Free the chunk's arrays as soon as they are copied
+        })).join();
+        return CompiledGraph.fromEdges(names.toArray(), sources, targets, weights, edgeCount);
+    }
+
+    // Links parsed from the lines that start inside one byte range of the file
+    static class Chunk {
+        final ByteStringInterner names = new ByteStringInterner(1 << 12);
+        int[] sources = new int[1 << 12];
+        int[] targets = new int[1 << 12];
+        int[] weights = new int[1 << 12];
+        int edges;
+        int lines;
+        int rejected;
+        long bytes;
+        final List<String> samples = new ArrayList<>();
+        final List<Integer> sampleLines = new ArrayList<>(); // 1-based line numbers within the chunk
+
+        // A line belongs to the chunk its first byte falls in; the last line may run past end
+        static Chunk read(FileChannel channel, long start, long end, long size, long header) throws IOException {
+            Chunk chunk = new Chunk();
+            long from = start == 0 ? 0 : start - 1; // Look one byte back to see whether a line starts at start
+            byte[] buffer = new byte[(int) (end - from) + 256];
+            int length = readFully(channel, from, buffer, 0, (int) (end - from));
+            int position = 0;
+            if (start != 0) {
+                while (position < length && buffer[position] != '\n') position++;
+                position++; // First byte after the newline that ends the previous chunk's last line
+            }
+            int limit = (int) (end - from); // Lines must start before this offset
+
+            while (position < limit) {
+                int lineEnd = position;
+                while (true) {
+                    while (lineEnd < length && buffer[lineEnd] != '\n') lineEnd++;
+                    if (lineEnd < length || from + length >= size) break;
+                    if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    int read = readFully(channel, from + length, buffer, length,
+                            (int) Math.min(buffer.length - length, size - from - length));
+                    if (read <= 0) break;
+                    length += read;
+                }
+                chunk.lines++;
+                chunk.parseLine(buffer, position, lineEnd, from + position == header);
+                chunk.bytes += Math.min(lineEnd + 1, length) - position;
+                position = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        static int readFully(FileChannel channel, long position, byte[] buffer, int offset, int length)
+                throws IOException {
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, length);
+            int total = 0;
+            while (target.hasRemaining()) {
+                int read = channel.read(target, position + total);
+                if (read < 0) break;
+                total += read;
+            }
+            return total;
+        }
+
+        // Whether a line holds anything besides blanks or a comment
+        static boolean isContent(byte[] line, int from, int to) {
+            if (to > from && line[to - 1] == '\r') to--;
+            while (from < to && isBlank(line[from])) from++;
+            return from < to && line[from] != '#';
+        }
+
+        private void parseLine(byte[] line, int from, int to, boolean headerCandidate) {
+            if (to > from && line[to - 1] == '\r') to--;
+            while (from < to && isBlank(line[from])) from++;
+            while (to > from && isBlank(line[to - 1])) to--;
+            if (from == to || line[from] == '#') return;
+
+            // Up to three fields separated by a comma or by runs of spaces/tabs
+            int[] fields = new int[6];
+            int field = 0;
+            int position = from;
+            while (position < to) {
+                if (field == 3) {
+                    reject(line, from, to);
+                    return;
+                }
+                int start = position;
+                while (position < to && line[position] != ',' && !isBlank(line[position])) position++;
+                int end = position;
+                while (position < to && isBlank(line[position])) position++;
+                if (position < to && line[position] == ',') {
+                    position++;
+                    while (position < to && isBlank(line[position])) position++;
+                    if (position == to) {
+                        reject(line, from, to); // Trailing comma
+                        return;
+                    }
+                }
+                if (start == end) {
+                    reject(line, from, to); // Empty field
+                    return;
+                }
+                fields[2 * field] = start;
+                fields[2 * field + 1] = end;
+                field++;
+            }
+            if (field < 2) {
+                reject(line, from, to);
+                return;
+            }
+            if (headerCandidate && isColumnName(line, fields[0], fields[1], SOURCE_COLUMNS)
+                    && isColumnName(line, fields[2], fields[3], DESTINATION_COLUMNS)
+                    && (field == 2 || isColumnName(line, fields[4], fields[5], WEIGHT_COLUMNS))) {
+                return; // Header
+            }
+            int weight = field == 3 ? parseWeight(line, fields[4], fields[5]) : 1;
+            if (weight < 0) {
+                reject(line, from, to);
+                return;
+            }
+
+            if (edges == sources.length) {
+                sources = Arrays.copyOf(sources, edges * 2);
+                targets = Arrays.copyOf(targets, edges * 2);
+                weights = Arrays.copyOf(weights, edges * 2);
+            }
+            sources[edges] = names.id(line, fields[0], fields[1] - fields[0]);
+            targets[edges] = names.id(line, fields[2], fields[3] - fields[2]);
+            weights[edges] = weight;
+            edges++;
+        }
+
+        private void reject(byte[] line, int from, int to) {
+            rejected++;
+            if (samples.size() < MAX_REJECTED_SAMPLES) {
+                samples.add(new String(line, from, Math.min(to - from, 200), StandardCharsets.UTF_8));
+                sampleLines.add(lines);
+            }
+        }
+
+        private static boolean isColumnName(byte[] line, int from, int to, List<String> names) {
+            String field = new String(line, from, to - from, StandardCharsets.UTF_8);
+            for (String name : names) {
+                if (name.equalsIgnoreCase(field)) return true;
+            }
+            return false;
+        }
+
+        // Non-negative int weight, or -1 if the field is not one
+        private static int parseWeight(byte[] line, int from, int to) {
+            if (to - from > 10) return -1;
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) return -1;
+                value = value * 10 + digit;
+            }
+            return value <= Integer.MAX_VALUE ? (int) value : -1;
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package networktopology;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed-capacity traffic log. Records live in preallocated column arrays indexed by
+// sequence number modulo the capacity, so memory use is constant and the oldest records
+// are overwritten once the buffer wraps. Appending never locks or touches the disk:
+// a producer claims a sequence number, fills the slot and publishes it.
+//
+// Source, destination and protocol are stored as int ids into a shared StringTable, so a repeated
+// address costs four bytes per record rather than a String of its own. A table holds at most
+// 3 * capacity strings (each record adds at most three), so it cannot fill within one lap of the
+// ring. When it fills, a fresh table takes over and the previous one is kept for the records still
+// referring to it; each record stores its table's generation, and a record whose table was
+// retired (only possible for a producer stalled for more than a lap) is counted as dropped.
+//
+// An optional daemon writer drains published records in batches to rotating,
+// append-only files ("<prefix>.<n>.fwl") in the BinaryLogWriter block format. Drained records
+// are collected into one block until it holds MIN_BLOCK_RECORDS or its oldest record has waited
+// MAX_BLOCK_DELAY_MILLIS (or the flush interval, if longer), so a trickle of traffic does not
+// leave a file of tiny blocks.
+public class TrafficLogBuffer implements AutoCloseable {
+    private static final long IN_PROGRESS = -1;
+    private static final int WRITE_BUFFER_BYTES = 1 << 18;
+    static final int MIN_BLOCK_RECORDS = 4096;
+    static final long MAX_BLOCK_DELAY_MILLIS = 2000;
+
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] sources;      // Ids in the table of the record's generation
+    private final int[] destinations;
+    private final int[] ports;
+    private final int[] protocols;
+    private final int[] generations;
+    private final boolean[] allowed;
+    private final AtomicLongArray published; // Sequence number held by each slot, or IN_PROGRESS while written
+    private final AtomicLong head = new AtomicLong();
+    private final int stringLimit;
+    private volatile StringTable strings;
+    private volatile StringTable previousStrings;
+
+    private final LongAdder dropped = new LongAdder(); // Overwritten before the writer saw them
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public TrafficLogBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        mask = size - 1;
+        timestamps = new long[size];
+        sources = new int[size];
+        destinations = new int[size];
+        ports = new int[size];
+        protocols = new int[size];
+        generations = new int[size];
+        allowed = new boolean[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, i - size); // As if the lap before sequence 0 had filled every slot
+        }
+        stringLimit = (int) Math.min(3L * size, Integer.MAX_VALUE - 8);
+        strings = new StringTable(0, stringLimit);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // Total records ever appended
+    public long appended() {
+        return head.get();
+    }
+
+    // End of the run of fully written records that starts at from: the first sequence number at or
+    // after from that is still being written or not yet claimed. A slot holding a later sequence
+    // number was overwritten, so its older record had been published.
+    long publishedEnd(long from) {
+        long end = head.get();
+        long sequence = Math.max(from, end - capacity());
+        while (sequence < end && published.get((int) (sequence & mask)) >= sequence) {
+            sequence++;
+        }
+        return sequence;
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public void append(String source, String destination, int port, String protocol, boolean isAllowed) {
+        long sequence = head.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        // Claim the slot from the record one lap earlier, waiting if that producer is still
+        // writing, so two producers can never fill the same slot at once. The wait only happens
+        // when producers are a full lap apart; yield so a descheduled producer can finish.
+        long previous = sequence - capacity();
+        for (int spins = 0; !published.compareAndSet(slot, previous, IN_PROGRESS); spins++) {
+            if (spins < 64) Thread.onSpinWait();
+            else Thread.yield();
+        }
+        VarHandle.storeStoreFence(); // Readers see IN_PROGRESS before any of the field writes below
+        timestamps[slot] = System.currentTimeMillis();
+        StringTable table = strings;
+        int sourceId, destinationId, protocolId;
+        // All three strings go into one table; a full table is replaced and the record retried
+        while ((sourceId = table.id(source)) < 0
+                || (destinationId = table.id(destination)) < 0
+                || (protocolId = table.id(protocol)) < 0) {
+            table = nextStrings(table);
+        }
+        sources[slot] = sourceId;
+        destinations[slot] = destinationId;
+        ports[slot] = port;
+        protocols[slot] = protocolId;
+        generations[slot] = table.generation;
+        allowed[slot] = isAllowed;
+        published.set(slot, sequence);
+    }
+
+    private synchronized StringTable nextStrings(StringTable full) {
+        if (strings == full) {
+            previousStrings = full;
+            strings = new StringTable(full.generation + 1, stringLimit);
+        }
+        return strings;
+    }
+
+    // Copies the record with the given sequence number into out; false if it was overwritten, is not
+    // yet written, or its string table was retired
+    boolean read(long sequence, FirewallLog out) {
+        int slot = (int) (sequence & mask);
+        if (published.get(slot) != sequence) return false;
+        int generation = generations[slot];
+        StringTable table = strings;
+        if (table.generation != generation) {
+            table = previousStrings;
+            if (table == null || table.generation != generation) return false;
+        }
+        out.timestamp = timestamps[slot];
+        out.source = table.get(sources[slot]);
+        out.destination = table.get(destinations[slot]);
+        out.port = ports[slot];
+        out.protocol = table.get(protocols[slot]);
+        out.status = allowed[slot] ? FirewallEngine.ALLOWED : FirewallEngine.BLOCKED;
+        VarHandle.acquireFence(); // Field reads above complete before the sequence is re-checked
+        return published.get(slot) == sequence;
+    }
+
+    // The most recent records still held, oldest first
+    public List<FirewallLog> snapshot(int limit) {
+        long end = head.get();
+        long start = Math.max(0, end - Math.min(limit, capacity()));
+        List<FirewallLog> logs = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            FirewallLog log = new FirewallLog(null, null, 0, null, null);
+            if (read(sequence, log)) logs.add(log);
+        }
+        return logs;
+    }
+
+    // Write the records still held to one file as CSV text, replacing it
+    public void exportTo(Path file) throws IOException {
+        long end = head.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+            writeRange(Math.max(0, end - capacity()), end, channel, buffer);
+        }
+    }
+
+    // Write the records still held to one binary columnar file, replacing it
+    public void exportBinary(Path file) throws IOException {
+        long end = head.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeBlocks(Math.max(0, end - capacity()), end, channel, new BinaryLogWriter());
+        }
+    }
+
+    // Start the background writer. Files rotate after maxFileBytes and only the newest maxFiles are kept.
+    public synchronized void startPersistence(Path directory, String prefix, long maxFileBytes, int maxFiles,
+                                              long flushIntervalMillis) throws IOException {
+        if (writer != null) return;
+        Files.createDirectories(directory);
+        running = true;
+        long start = head.get(); // Persist only what is logged from now on
+        Thread thread = new Thread(() -> persist(start, directory, prefix, maxFileBytes, maxFiles,
+                TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis)), "traffic-log-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    // Stop the writer after it has drained what is already in the buffer
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+            writer = null;
+            running = false;
+        }
+        if (thread == null) return;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void persist(long cursor, Path directory, String prefix, long maxFileBytes, int maxFiles, long flushIntervalNanos) {
+        BinaryLogWriter blocks = new BinaryLogWriter();
+        long maxDelayNanos = Math.max(flushIntervalNanos, TimeUnit.MILLISECONDS.toNanos(MAX_BLOCK_DELAY_MILLIS));
+        long blockStarted = 0; // When the records held in blocks began to collect
+        FileChannel channel = null;
+        try {
+            int fileIndex = nextFileIndex(directory, prefix);
+            channel = openLogFile(directory, prefix, fileIndex);
+            while (true) {
+                boolean stopping = !running;
+                long end = head.get();
+                if (end - cursor > capacity()) {
+                    dropped.add(end - capacity() - cursor);
+                    cursor = end - capacity();
+                }
+                boolean wrote = cursor < end; // Full blocks are written as records are collected
+                if (cursor < end) {
+                    if (blocks.size() == 0) blockStarted = System.nanoTime();
+                    cursor = collectBlocks(cursor, end, channel, blocks);
+                }
+                if (blocks.size() > 0 && (stopping || blocks.size() >= MIN_BLOCK_RECORDS
+                        || System.nanoTime() - blockStarted >= maxDelayNanos)) {
+                    blocks.writeBlock(channel);
+                    wrote = true;
+                }
+                if (wrote && channel.size() >= maxFileBytes) {
+                    channel.close();
+                    fileIndex++;
+                    channel = openLogFile(directory, prefix, fileIndex);
+                    Files.deleteIfExists(logFile(directory, prefix, fileIndex - maxFiles));
+                }
+                if (stopping) break;
+                if (cursor == head.get()) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                } else {
+                    Thread.yield(); // A producer is still filling the next slot
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Traffic log writer stopped: " + e.getMessage());
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private interface RecordSink {
+        void accept(FirewallLog log) throws IOException;
+    }
+
+    // Passes records [from, to) to the sink and returns the sequence after the last one handled.
+    // Stops early at a record whose producer has not finished writing it yet.
+    private long forEachRecord(long from, long to, RecordSink sink) throws IOException {
+        FirewallLog log = new FirewallLog(null, null, 0, null, null);
+        long sequence = from;
+        for (; sequence < to; sequence++) {
+            if (!read(sequence, log)) {
+                long current = published.get((int) (sequence & mask));
+                if (current == sequence && read(sequence, log)) { // Published after the first attempt
+                    sink.accept(log);
+                    continue;
+                }
+                if (current >= sequence) { // Already overwritten by a newer record, or its strings retired
+                    dropped.increment();
+                    continue;
+                }
+                break;
+            }
+            sink.accept(log);
+        }
+        return sequence;
+    }
+
+    // Writes records [from, to) as one or more binary blocks
+    private long writeBlocks(long from, long to, FileChannel channel, BinaryLogWriter blocks) throws IOException {
+        long next = collectBlocks(from, to, channel, blocks);
+        blocks.writeBlock(channel);
+        return next;
+    }
+
+    // Adds records [from, to) to blocks, writing only blocks that fill up
+    private long collectBlocks(long from, long to, FileChannel channel, BinaryLogWriter blocks) throws IOException {
+        return forEachRecord(from, to, log -> {
+            blocks.add(log);
+            if (blocks.isFull()) blocks.writeBlock(channel);
+        });
+    }
+
+    // Writes records [from, to) as CSV lines
+    private long writeRange(long from, long to, FileChannel channel, ByteBuffer buffer) throws IOException {
+        long next = forEachRecord(from, to, log -> {
+            if (buffer.remaining() < 64 + 3 * (log.source.length() + log.destination.length() + log.protocol.length())) {
+                drain(channel, buffer);
+            }
+            putLong(buffer, log.timestamp);
+            buffer.put((byte) ',');
+            putString(buffer, log.source);
+            buffer.put((byte) ',');
+            putString(buffer, log.destination);
+            buffer.put((byte) ',');
+            putLong(buffer, log.port);
+            buffer.put((byte) ',');
+            putString(buffer, log.protocol);
+            buffer.put((byte) ',');
+            putString(buffer, log.status);
+            buffer.put((byte) '\n');
+        });
+        drain(channel, buffer);
+        return next;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static void putLong(ByteBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    private static Path logFile(Path directory, String prefix, int index) {
+        return directory.resolve(prefix + "." + index + ".fwl");
+    }
+
+    private static FileChannel openLogFile(Path directory, String prefix, int index) throws IOException {
+        return FileChannel.open(logFile(directory, prefix, index), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Continue after the highest numbered file left by an earlier run
+    private static int nextFileIndex(Path directory, String prefix) throws IOException {
+        int next = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + ".*.fwl")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String index = name.substring(prefix.length() + 1, name.length() - ".fwl".length());
+                try {
+                    next = Math.max(next, Integer.parseInt(index) + 1);
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,98 @@
+package networktopology;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Table model that shows a TrafficLogBuffer in place, without copying records into rows.
+// Row r is the record with sequence number first + r, read from the buffer's columns when JTable
+// asks for a visible cell. refresh() brings the row range up to date with one delete event for
+// records the ring has overwritten and one insert event for new records. Rows stop before the
+// first record a producer is still writing, so no row is inserted while its cells are blank.
+public class TrafficLogTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"Timestamp", "Source", "Destination", "Port", "Protocol", "Status"};
+
+    private final TrafficLogBuffer buffer;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long first; // Sequence number of row 0
+    private int rows;
+
+    // Last record read, since JTable asks for the cells of a row one column at a time
+    private final FirewallLog cached = new FirewallLog(null, null, 0, null, null);
+    private long cachedSequence = -1;
+    private boolean cachedValid;
+
+    public TrafficLogTableModel(TrafficLogBuffer buffer) {
+        this.buffer = buffer;
+        refresh();
+    }
+
+    // Pick up records appended since the last call (EDT only)
+    public void refresh() {
+        long end = buffer.publishedEnd(first + rows);
+        long start = Math.max(0, end - buffer.capacity());
+        if (start == first && end == first + rows) return;
+
+        int removed = (int) Math.min(rows, Math.max(0, start - first));
+        if (removed > 0) {
+            rows -= removed;
+            first += removed;
+            fireTableRowsDeleted(0, removed - 1);
+        }
+        if (rows == 0) first = start;
+        int added = (int) (end - (first + rows));
+        if (added > 0) {
+            rows += added;
+            fireTableRowsInserted(rows - added, rows - 1);
+        }
+        cachedSequence = -1;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 3 ? Integer.class : Object.class;
+    }
+
+    // Cells of a record overwritten since the last refresh() are empty
+    @Override
+    public Object getValueAt(int row, int column) {
+        long sequence = first + row;
+        if (sequence != cachedSequence) {
+            cachedValid = buffer.read(sequence, cached);
+            cachedSequence = sequence;
+        }
+        if (!cachedValid) return null;
+        switch (column) {
+            case 0:
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(cached.timestamp), zone);
+            case 1:
+                return cached.source;
+            case 2:
+                return cached.destination;
+            case 3:
+                return cached.port;
+            case 4:
+                return cached.protocol;
+            default:
+                return cached.status;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package networktopology;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded, concurrent cache of firewall verdicts keyed on the flow tuple
+// (source, destination, port, protocol), placed in front of FirewallEngine.
+//
+// Eviction follows W-TinyLFU: new flows enter a small LRU window; when the window overflows,
+// its oldest flow only displaces the oldest flow of the main segmented LRU if a count-min
+// sketch says it has been requested more often. One-off flows therefore cannot flush the
+// repetitive traffic that makes up most production load.
+//
+// Entries carry the rule generation they were computed under; invalidate() bumps the
+// generation, so verdicts from before a rule change are never returned.
+public class VerdictCache {
+    private final Segment[] segments;
+    private final int segmentMask;
+    private volatile int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerdictCache(int maximumSize) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4,
+                maximumSize / 64)));
+        segments = new Segment[count];
+        segmentMask = count - 1;
+        int perSegment = Math.max(1, maximumSize / count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    // Rule generation to pass to put() for a verdict computed from the current rules
+    public int generation() {
+        return generation;
+    }
+
+    // Cached verdict, or null if the flow is unknown or was decided under older rules
+    public Boolean get(String source, String destination, int port, String protocol) {
+        FlowKey key = new FlowKey(source, destination, port, protocol);
+        Boolean verdict = segmentFor(key).get(key, generation);
+        if (verdict == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return verdict;
+    }
+
+    public void put(String source, String destination, int port, String protocol, boolean allowed, int ruleGeneration) {
+        if (ruleGeneration != generation) return; // Computed from rules that have since changed
+        FlowKey key = new FlowKey(source, destination, port, protocol);
+        evictions.add(segmentFor(key).put(key, allowed, ruleGeneration));
+    }
+
+    // Drop every cached verdict; call whenever the rule list changes
+    public synchronized void invalidate() {
+        generation++;
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        long hitCount = hitCount();
+        long total = hitCount + missCount();
+        return "VerdictCache [Size: " + size() + ", Hits: " + hitCount + ", Misses: " + missCount()
+                + ", Evictions: " + evictionCount() + ", Hit Rate: "
+                + (total == 0 ? 0 : Math.round(hitCount * 1000.0 / total) / 10.0) + "%]";
+    }
+
+    private Segment segmentFor(FlowKey key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    // Protocols compare case-insensitively, exactly as FirewallEngine matches them, so "tcp" and
+    // "TCP" share one entry; the hash folds case without allocating a normalized copy
+    private static final class FlowKey {
+        final String source;
+        final String destination;
+        final int port;
+        final String protocol;
+        final int hash;
+
+        FlowKey(String source, String destination, int port, String protocol) {
+            this.source = source;
+            this.destination = destination;
+            this.port = port;
+            this.protocol = protocol;
+            this.hash = ((source.hashCode() * 31 + destination.hashCode()) * 31 + port) * 31 + protocolHash(protocol);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof FlowKey)) return false;
+            FlowKey key = (FlowKey) other;
+            return port == key.port && source.equals(key.source) && destination.equals(key.destination)
+                    && protocol.equalsIgnoreCase(key.protocol);
+        }
+
+        // Hash that agrees with equalsIgnoreCase
+        private static int protocolHash(String protocol) {
+            int h = 0;
+            for (int i = 0; i < protocol.length(); i++) {
+                h = 31 * h + Character.toLowerCase(Character.toUpperCase(protocol.charAt(i)));
+            }
+            return h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final class Node {
+        final FlowKey key;
+        boolean allowed;
+        int generation;
+        int queue;
+        Node prev;
+        Node next;
+
+        Node(FlowKey key) {
+            this.key = key;
+        }
+    }
+
+    // Circular doubly linked LRU list; head.next is the oldest entry
+    private static final class Queue {
+        final Node head = new Node(null);
+        int size;
+
+        Queue() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void addNewest(Node node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            size++;
+        }
+
+        void remove(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        Node oldest() {
+            return head.next == head ? null : head.next;
+        }
+
+        void clear() {
+            head.prev = head;
+            head.next = head;
+            size = 0;
+        }
+    }
+
+    private static final class Segment {
+        private final Map<FlowKey, Node> entries = new HashMap<>();
+        private final Queue window = new Queue();
+        private final Queue probation = new Queue();
+        private final Queue protectedQueue = new Queue();
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final int protectedCapacity;
+        private final FrequencySketch sketch;
+
+        Segment(int capacity) {
+            windowCapacity = Math.max(1, capacity / 100);
+            mainCapacity = Math.max(1, capacity - windowCapacity);
+            protectedCapacity = Math.max(1, mainCapacity * 4 / 5);
+            sketch = new FrequencySketch(capacity);
+        }
+
+        synchronized Boolean get(FlowKey key, int generation) {
+            Node node = entries.get(key);
+            sketch.increment(key.hash);
+            if (node == null) return null;
+            if (node.generation != generation) {
+                unlink(node);
+                entries.remove(key);
+                return null;
+            }
+            onAccess(node);
+            return node.allowed;
+        }
+
+        // Returns the number of evicted entries
+        synchronized int put(FlowKey key, boolean allowed, int generation) {
+            Node node = entries.get(key);
+            if (node != null) {
+                node.allowed = allowed;
+                node.generation = generation;
+                onAccess(node);
+                return 0;
+            }
+            node = new Node(key);
+            node.allowed = allowed;
+            node.generation = generation;
+            node.queue = WINDOW;
+            entries.put(key, node);
+            window.addNewest(node);
+            return window.size > windowCapacity ? evictFromWindow() : 0;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void onAccess(Node node) {
+            if (node.queue == WINDOW) {
+                window.remove(node);
+                window.addNewest(node);
+            } else if (node.queue == PROBATION) {
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addNewest(node);
+                if (protectedQueue.size > protectedCapacity) {
+                    Node demoted = protectedQueue.oldest();
+                    protectedQueue.remove(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addNewest(demoted);
+                }
+            } else {
+                protectedQueue.remove(node);
+                protectedQueue.addNewest(node);
+            }
+        }
+
+        // Move the window's oldest entry to the main space, or drop it if it loses the admission test
+        private int evictFromWindow() {
+            Node candidate = window.oldest();
+            window.remove(candidate);
+            if (probation.size + protectedQueue.size < mainCapacity) {
+                candidate.queue = PROBATION;
+                probation.addNewest(candidate);
+                return 0;
+            }
+            Node victim = probation.oldest();
+            if (victim == null) victim = protectedQueue.oldest();
+            if (sketch.frequency(candidate.key.hash) > sketch.frequency(victim.key.hash)) {
+                unlink(victim);
+                entries.remove(victim.key);
+                candidate.queue = PROBATION;
+                probation.addNewest(candidate);
+            } else {
+                entries.remove(candidate.key);
+            }
+            return 1;
+        }
+
+        private void unlink(Node node) {
+            if (node.queue == WINDOW) {
+                window.remove(node);
+            } else if (node.queue == PROBATION) {
+                probation.remove(node);
+            } else {
+                protectedQueue.remove(node);
+            }
+        }
+    }
+
+    // Count-min sketch with four 4-bit counters per key, halved periodically so old popularity fades
+    private static final class FrequencySketch {
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(capacity, 16) * 2 - 1);
+            table = new long[size];
+            mask = size - 1;
+            sampleSize = 10 * Math.max(capacity, 16);
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                frequency = Math.min(frequency, counter(hash, i));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                int shift = offset(hash, i);
+                if (((table[index] >>> shift) & 0xfL) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) reset();
+        }
+
+        private int counter(int hash, int i) {
+            return (int) ((table[index(hash, i)] >>> offset(hash, i)) & 0xfL);
+        }
+
+        private int index(int hash, int i) {
+            int h = (hash + i) * 0x9E3779B9;
+            h ^= h >>> 15;
+            return h & mask;
+        }
+
+        // Which of the 16 nibbles in the word this row uses
+        private int offset(int hash, int i) {
+            return (((hash >>> (i * 8)) & 3) + i * 4) << 2;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions = sampleSize / 2;
+        }
+    }
+}
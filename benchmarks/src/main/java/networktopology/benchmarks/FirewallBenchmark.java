@@ -0,0 +1,99 @@
+package networktopology.benchmarks;
+
+import networktopology.FirewallEngine;
+import networktopology.FirewallManager;
+import networktopology.FirewallRule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Firewall decisions against a synthetic rule set mixing host, CIDR and wildcard addresses,
+// port ranges and protocols. Flows repeat with a skewed distribution, as production traffic does.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FirewallBenchmark {
+    private static final int FLOWS = 1 << 14;
+    private static final String[] PROTOCOLS = {"TCP", "UDP", "ICMP"};
+
+    @Param({"100", "10000"})
+    public int rules;
+
+    private FirewallManager manager;
+    private FirewallEngine engine;
+    private String[] sources;
+    private String[] destinations;
+    private int[] ports;
+    private String[] protocols;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            next = (next + 1) & (FLOWS - 1);
+            return next;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        manager = new FirewallManager();
+        for (int i = 0; i < rules - 1; i++) {
+            String source = random.nextInt(4) == 0 ? "*" : address(random);
+            String destination = random.nextBoolean()
+                    ? "10." + random.nextInt(256) + "." + random.nextInt(256) + ".0/24"
+                    : address(random);
+            int port = random.nextInt(65000);
+            int portEnd = random.nextInt(3) == 0 ? port + random.nextInt(500) : port;
+            String protocol = random.nextInt(5) == 0 ? "*" : PROTOCOLS[random.nextInt(PROTOCOLS.length)];
+            manager.addRule(new FirewallRule(source, destination, port, portEnd, protocol,
+                    random.nextBoolean() ? "ALLOW" : "BLOCK"));
+        }
+        manager.addRule(new FirewallRule("*", "*", 0, 65535, "*", "ALLOW"));
+        engine = manager.engine();
+
+        // A few thousand distinct flows, drawn so that a small hot set dominates
+        int distinct = 4096;
+        String[][] pool = new String[distinct][];
+        int[] poolPorts = new int[distinct];
+        for (int i = 0; i < distinct; i++) {
+            pool[i] = new String[]{address(random), address(random), PROTOCOLS[random.nextInt(PROTOCOLS.length)]};
+            poolPorts[i] = random.nextInt(65536);
+        }
+        sources = new String[FLOWS];
+        destinations = new String[FLOWS];
+        ports = new int[FLOWS];
+        protocols = new String[FLOWS];
+        for (int i = 0; i < FLOWS; i++) {
+            int pick = (int) (distinct * Math.pow(random.nextDouble(), 3));
+            sources[i] = pool[pick][0];
+            destinations[i] = pool[pick][1];
+            ports[i] = poolPorts[pick];
+            protocols[i] = pool[pick][2];
+        }
+    }
+
+    private static String address(Random random) {
+        return "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+    }
+
+    // Compiled rule matching alone
+    @Benchmark
+    public boolean engineMatch(Cursor cursor) {
+        int i = cursor.advance();
+        return engine.isAllowed(sources[i], destinations[i], ports[i], protocols[i]);
+    }
+
+    // Full validation path: verdict cache, engine on a miss, ring-buffer log append
+    @Benchmark
+    public String validateTraffic(Cursor cursor) {
+        int i = cursor.advance();
+        return manager.validateTraffic(sources[i], destinations[i], ports[i], protocols[i]);
+    }
+}
@@ -0,0 +1,91 @@
+package networktopology.benchmarks;
+
+import networktopology.Graph;
+import networktopology.Route;
+import networktopology.SearchMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Read-side hot paths over a prebuilt topology. Graph.findShortestPath and detectBottlenecks print
+// to stdout, so the benchmarks call route() and findBottlenecks(), which run the same searches
+// and index lookups without console output.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GraphQueryBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({TopologyGenerator.RANDOM, TopologyGenerator.SCALE_FREE, TopologyGenerator.GRID})
+    public String shape;
+
+    @Param({"10000", "100000"})
+    public int nodes;
+
+    @Param({"4"})
+    public int degree;
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"95"})
+    public int threshold;
+
+    private Graph graph;
+    private String[] starts;
+    private String[] ends;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TopologyGenerator.Links links = TopologyGenerator.generate(shape, nodes, degree, 42);
+        graph = links.addTo(new Graph());
+        Random random = new Random(7);
+        starts = new String[QUERIES];
+        ends = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = links.names[random.nextInt(links.names.length)];
+            ends[i] = links.names[random.nextInt(links.names.length)];
+        }
+        graph.snapshot().landmarks(); // Compile and select landmarks outside the measurement
+        graph.bottleneckIndex();
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Route shortestPathDijkstra() {
+        int i = nextQuery();
+        return graph.route(starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public Route shortestPathAStar() {
+        int i = nextQuery();
+        return graph.route(starts[i], ends[i], SearchMode.A_STAR);
+    }
+
+    @Benchmark
+    public Route shortestPathBidirectional() {
+        int i = nextQuery();
+        return graph.route(starts[i], ends[i], SearchMode.BIDIRECTIONAL);
+    }
+
+    @Benchmark
+    public List<String> discoverDevices() {
+        return graph.discoverDevices(starts[nextQuery()], depth);
+    }
+
+    @Benchmark
+    public long detectBottlenecks() {
+        return graph.findBottlenecks(threshold).count();
+    }
+}
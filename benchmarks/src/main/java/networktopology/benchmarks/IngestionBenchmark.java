@@ -0,0 +1,62 @@
+package networktopology.benchmarks;
+
+import networktopology.CompactGraph;
+import networktopology.ConcurrentGraph;
+import networktopology.Graph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// addEdge throughput: each invocation loads a whole generated topology into a fresh graph.
+// Scores are per link thanks to @OperationsPerInvocation.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IngestionBenchmark {
+    static final int NODES = 100_000;
+    static final int DEGREE = 4;
+
+    @Param({"graph", "concurrent", "compact"})
+    public String storage;
+
+    @Param({TopologyGenerator.RANDOM, TopologyGenerator.SCALE_FREE})
+    public String shape;
+
+    private TopologyGenerator.Links links;
+    private Graph graph;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        links = TopologyGenerator.generate(shape, NODES, DEGREE, 42);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshGraph() {
+        switch (storage) {
+            case "concurrent":
+                graph = new ConcurrentGraph();
+                break;
+            case "compact":
+                graph = new CompactGraph();
+                break;
+            default:
+                graph = new Graph();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES * DEGREE)
+    public Graph addEdge() {
+        return links.addTo(graph);
+    }
+
+    // Adding links and then compiling the snapshot that the first query needs
+    @Benchmark
+    @OperationsPerInvocation(NODES * DEGREE)
+    public Object addEdgeAndCompile() {
+        return links.addTo(graph).snapshot();
+    }
+}
@@ -0,0 +1,104 @@
+package networktopology.benchmarks;
+
+import networktopology.Graph;
+
+import java.util.Random;
+
+// Synthetic topologies for the benchmarks. Links are generated once into primitive arrays so
+// that ingestion benchmarks measure addEdge and not the generator.
+public final class TopologyGenerator {
+    public static final String RANDOM = "random";         // Uniform random links
+    public static final String SCALE_FREE = "scaleFree"; // Preferential attachment (Barabasi-Albert), hub-heavy
+    public static final String GRID = "grid";            // Square lattice, large diameter
+
+    private TopologyGenerator() {
+    }
+
+    // Links in insertion order; link i runs names[sources[i]] -> names[targets[i]]
+    public static final class Links {
+        public final String[] names;
+        public final int[] sources;
+        public final int[] targets;
+        public final int[] weights;
+        public int size;
+
+        Links(int nodes, int capacity) {
+            names = new String[nodes];
+            for (int i = 0; i < nodes; i++) {
+                names[i] = "device-" + i;
+            }
+            sources = new int[capacity];
+            targets = new int[capacity];
+            weights = new int[capacity];
+        }
+
+        void add(int source, int target, int weight) {
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+        }
+
+        public <G extends Graph> G addTo(G graph) {
+            for (int i = 0; i < size; i++) {
+                graph.addEdge(names[sources[i]], names[targets[i]], weights[i]);
+            }
+            return graph;
+        }
+    }
+
+    // averageDegree is the mean number of outgoing links per node; weights are 1..100
+    public static Links generate(String shape, int nodes, int averageDegree, long seed) {
+        Random random = new Random(seed);
+        switch (shape) {
+            case RANDOM: {
+                Links links = new Links(nodes, nodes * averageDegree);
+                for (int i = 0; i < nodes * averageDegree; i++) {
+                    links.add(random.nextInt(nodes), random.nextInt(nodes), 1 + random.nextInt(100));
+                }
+                return links;
+            }
+            case SCALE_FREE: {
+                // Each new node links to ~averageDegree / 2 existing nodes chosen proportionally to their
+                // degree; every link is added in both directions
+                int perNode = Math.max(1, averageDegree / 2);
+                Links links = new Links(nodes, 2 * perNode * nodes);
+                int[] endpoints = new int[2 * perNode * nodes];
+                int endpointCount = 0;
+                for (int node = 1; node < nodes; node++) {
+                    for (int k = 0; k < Math.min(perNode, node); k++) {
+                        int target = endpointCount == 0 ? 0 : endpoints[random.nextInt(endpointCount)];
+                        int weight = 1 + random.nextInt(100);
+                        links.add(node, target, weight);
+                        links.add(target, node, weight);
+                        endpoints[endpointCount++] = node;
+                        endpoints[endpointCount++] = target;
+                    }
+                }
+                return links;
+            }
+            case GRID: {
+                int side = (int) Math.ceil(Math.sqrt(nodes));
+                Links links = new Links(side * side, 4 * side * side);
+                for (int row = 0; row < side; row++) {
+                    for (int column = 0; column < side; column++) {
+                        int node = row * side + column;
+                        if (column + 1 < side) {
+                            int weight = 1 + random.nextInt(100);
+                            links.add(node, node + 1, weight);
+                            links.add(node + 1, node, weight);
+                        }
+                        if (row + 1 < side) {
+                            int weight = 1 + random.nextInt(100);
+                            links.add(node, node + side, weight);
+                            links.add(node + side, node, weight);
+                        }
+                    }
+                }
+                return links;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown topology shape: " + shape);
+        }
+    }
+}